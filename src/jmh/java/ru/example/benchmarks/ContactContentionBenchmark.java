@@ -0,0 +1,136 @@
+package ru.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.example.models.Contact;
+import ru.example.models.ContactOperation;
+import ru.example.models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for contacts of one hot user.
+ * All threads read and update random contacts of the same telephone book.
+ * Single contact changes take shared lock of telephone book, "writesWithBatches" group shows their
+ * throughput while batches take exclusive lock of the same book.
+ * Run main method to see throughput scaling from one thread to all available cores.
+ *
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactContentionBenchmark {
+    @Param({"10000"})
+    private int contactsCount;
+
+    private User hotUser;
+    private Long[] contactIds;
+
+    @Setup
+    public void createHotUser() {
+        hotUser = new User("Hot user");
+        contactIds = new Long[contactsCount];
+        for (int i = 0; i < contactsCount; i++) {
+            contactIds[i] = hotUser.addContact(new Contact("Contact" + i, "8800" + i)).getId();
+        }
+    }
+
+    @Benchmark
+    public Contact updateContact() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long contactId = contactIds[random.nextInt(contactsCount)];
+        return hotUser.updateContact(contactId, new Contact("Contact", "8800" + random.nextInt(contactsCount)));
+    }
+
+    @Benchmark
+    public Contact addAndDeleteContact() {
+        Contact contact = hotUser.addContact(new Contact("Contact", "8800"));
+        return hotUser.deleteContactById(contact.getId(), (oldContact, newContact) -> {
+        }).orElse(null);
+    }
+
+    @Benchmark
+    public List<Contact> applyContactOperations() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hotUser.applyContactOperations(Arrays.asList(
+                update(contactIds[random.nextInt(contactsCount)], random.nextInt(contactsCount)),
+                update(contactIds[random.nextInt(contactsCount)], random.nextInt(contactsCount))), changes -> {
+        });
+    }
+
+    @Benchmark
+    public Contact getContact() {
+        Long contactId = contactIds[ThreadLocalRandom.current().nextInt(contactsCount)];
+        return hotUser.getContactById(contactId).orElse(null);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Contact readWriteGetContact() {
+        return getContact();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Contact readWriteUpdateContact() {
+        return updateContact();
+    }
+
+    @Benchmark
+    @Group("writesWithBatches")
+    @GroupThreads(3)
+    public Contact writesWithBatchesUpdateContact() {
+        return updateContact();
+    }
+
+    @Benchmark
+    @Group("writesWithBatches")
+    @GroupThreads(1)
+    public List<Contact> writesWithBatchesApplyContactOperations() {
+        return applyContactOperations();
+    }
+
+    private static ContactOperation update(Long contactId, int phoneSuffix) {
+        ContactOperation operation = new ContactOperation();
+        operation.setType(ContactOperation.Type.UPDATE);
+        operation.setContactId(contactId);
+        operation.setName("Contact");
+        operation.setPhone("8800" + phoneSuffix);
+        return operation;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<String> report = new ArrayList<>();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(ContactContentionBenchmark.class.getSimpleName()
+                            + "\\.(updateContact|addAndDeleteContact|getContact)$")
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                report.add(String.format("%-16s threads=%-3d %12.1f ops/ms",
+                        result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        threads,
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        report.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,273 @@
+package ru.example.benchmarks;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.example.TelephoneBookApp;
+import ru.example.models.Contact;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of UserController endpoints.
+ * Application is started in-process on a random port and filled with generated users and contacts,
+ * then requests of the configured mix are sent at fixed arrival rate (open model).
+ * Latency is measured from the moment request was scheduled, not from the moment it was sent,
+ * so server stalls are not hidden by a stalled client (coordinated omission).
+ * Report has throughput, errors and p50/p99/p99.9/max latency per endpoint.
+ * <p>
+ * Options as name=value (all optional): rate=1000 (requests per second), duration=30 and warmup=10 (seconds),
+ * users=10000, contacts=20 (per user), connections=64 (client threads),
+ * mix=getUser:30,getContacts:10,getContact:20,searchUsers:10,searchContacts:10,addContact:10,updateContact:10.
+ * Endpoint getMissingUser (404 for unknown user id) is not in default mix.
+ * Run: mvn -Pbenchmarks test-compile exec:exec -Dbenchmarks.main=ru.example.benchmarks.HttpLoadTest -Djmh.args="rate=2000"
+ *
+ * @since 17.10.2026
+ */
+public class HttpLoadTest {
+    private static final String DEFAULT_MIX =
+            "getUser:30,getContacts:10,getContact:20,searchUsers:10,searchContacts:10,addContact:10,updateContact:10";
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final String[] NAMES = {"Mary", "John", "Mia", "Billy", "Olga", "Ivan", "Anna", "Peter"};
+
+    private final Map<String, String> options;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private int[] weights;
+    private String baseUrl;
+    private Long[] userIds;
+    private Long[][] contactIds;
+
+    private HttpLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        ConfigurableApplicationContext context = SpringApplication.run(TelephoneBookApp.class,
+                "--server.port=0", "--telephonebook.persistence.enabled=false", "--logging.level.root=WARN");
+        try {
+            HttpLoadTest loadTest = new HttpLoadTest(options);
+            loadTest.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            loadTest.fill(context.getBean(UsersRepository.class));
+            loadTest.run();
+        } finally {
+            context.close();
+        }
+    }
+
+    private void fill(UsersRepository repository) {
+        int usersCount = intOption("users", 10_000);
+        int contactsCount = intOption("contacts", 20);
+        userIds = new Long[usersCount];
+        contactIds = new Long[usersCount][contactsCount];
+        for (int i = 0; i < usersCount; i++) {
+            User user = new User(name(i));
+            for (int j = 0; j < contactsCount; j++) {
+                user.addContact(new Contact(name(j), phone()));
+            }
+            userIds[i] = repository.save(user).getId();
+            int j = 0;
+            for (Long contactId : user.getContacts().keySet()) {
+                contactIds[i][j++] = contactId;
+            }
+        }
+        System.out.println("Filled " + usersCount + " users with " + contactsCount + " contacts each");
+    }
+
+    private void run() throws InterruptedException {
+        parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        int rate = intOption("rate", 1000);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(intOption("warmup", 10));
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 30));
+        ExecutorService connections = Executors.newFixedThreadPool(intOption("connections", 64));
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measurementStart = start + warmupNanos;
+        long end = measurementStart + durationNanos;
+        System.out.println("Sending " + rate + " requests/s, warmup " + warmupNanos / 1_000_000_000
+                + " s, measurement " + durationNanos / 1_000_000_000 + " s");
+        for (long i = 0; ; i++) {
+            long scheduledTime = start + i * intervalNanos;
+            if (scheduledTime >= end) {
+                break;
+            }
+            long delay = scheduledTime - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Endpoint endpoint = nextEndpoint();
+            boolean measured = scheduledTime >= measurementStart;
+            connections.execute(() -> endpoint.call(scheduledTime, measured));
+        }
+        connections.shutdown();
+        connections.awaitTermination(1, TimeUnit.MINUTES);
+        report(durationNanos);
+    }
+
+    private void parseMix(String mix) {
+        Map<String, Endpoint> known = new LinkedHashMap<>();
+        known.put("getUser", new Endpoint("GET /users/{id}", random ->
+                request("GET", "/users/" + randomUser(random), null)));
+        known.put("getMissingUser", new Endpoint("GET /users/{missing id}", random ->
+                request("GET", "/users/" + (User.lastId() + 1 + random.nextInt(1_000_000)), null) == 404 ? 200 : 500));
+        known.put("getContacts", new Endpoint("GET /users/{id}/contacts", random ->
+                request("GET", "/users/" + randomUser(random) + "/contacts", null)));
+        known.put("getContact", new Endpoint("GET /users/{id}/contacts/{id}", random -> {
+            int user = random.nextInt(userIds.length);
+            return request("GET", "/users/" + userIds[user] + "/contacts/" + randomContact(user, random), null);
+        }));
+        known.put("searchUsers", new Endpoint("POST /users/search", random ->
+                request("POST", "/users/search", NAMES[random.nextInt(NAMES.length)].substring(0, 3))));
+        known.put("searchContacts", new Endpoint("POST /users/{id}/contacts/search", random ->
+                request("POST", "/users/" + randomUser(random) + "/contacts/search", phone().substring(0, 5))));
+        known.put("addContact", new Endpoint("POST /users/{id}/contacts", random ->
+                request("POST", "/users/" + randomUser(random) + "/contacts", contactJson(random))));
+        known.put("updateContact", new Endpoint("PUT /users/{id}/contacts/{id}", random -> {
+            int user = random.nextInt(userIds.length);
+            return request("PUT", "/users/" + userIds[user] + "/contacts/" + randomContact(user, random),
+                    contactJson(random));
+        }));
+        List<Integer> endpointWeights = new ArrayList<>();
+        for (String item : mix.split(",")) {
+            String[] nameAndWeight = item.trim().split(":");
+            Endpoint endpoint = known.get(nameAndWeight[0]);
+            if (endpoint == null) {
+                throw new IllegalArgumentException("Unknown endpoint " + nameAndWeight[0] + ", known are " + known.keySet());
+            }
+            endpoints.add(endpoint);
+            endpointWeights.add(Integer.parseInt(nameAndWeight[1]));
+        }
+        weights = new int[endpointWeights.size()];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += endpointWeights.get(i);
+            weights[i] = total;
+        }
+    }
+
+    private Endpoint nextEndpoint() {
+        int value = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        int index = 0;
+        while (weights[index] <= value) {
+            index++;
+        }
+        return endpoints.get(index);
+    }
+
+    private void report(long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        System.out.printf("%-36s %10s %10s %8s %10s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Req/s", "Errors", "p50, ms", "p99, ms", "p99.9, ms", "Max, ms");
+        for (Endpoint endpoint : endpoints) {
+            Histogram histogram = endpoint.recorder.getIntervalHistogram();
+            System.out.printf("%-36s %10d %10.1f %8d %10.3f %10.3f %10.3f %10.3f%n",
+                    endpoint.name, histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    endpoint.errors.get(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+        }
+    }
+
+    private Long randomUser(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    private Long randomContact(int user, Random random) {
+        Long[] userContacts = contactIds[user];
+        return userContacts.length == 0 ? 0L : userContacts[random.nextInt(userContacts.length)];
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static String name(int index) {
+        return NAMES[index % NAMES.length] + " " + index;
+    }
+
+    private static String phone() {
+        return "79" + (100_000_000 + ThreadLocalRandom.current().nextInt(900_000_000));
+    }
+
+    private static String contactJson(Random random) {
+        return "{\"name\":\"" + name(random.nextInt(1000)) + "\",\"phone\":\"" + phone() + "\"}";
+    }
+
+    /**
+     * Sends request and returns response status. Response is read fully, so connection is kept alive.
+     */
+    private int request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", body.startsWith("{") ? "application/json" : "text/plain");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    // drain response
+                }
+            }
+        }
+        return status;
+    }
+
+    @FunctionalInterface
+    private interface RequestSender {
+        int send(Random random) throws IOException;
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private final RequestSender sender;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY, 3);
+        private final AtomicLong errors = new AtomicLong();
+
+        Endpoint(String name, RequestSender sender) {
+            this.name = name;
+            this.sender = sender;
+        }
+
+        void call(long scheduledTime, boolean measured) {
+            boolean failed;
+            try {
+                failed = sender.send(ThreadLocalRandom.current()) >= 400;
+            } catch (IOException | RuntimeException e) {
+                failed = true;
+            }
+            if (!measured) {
+                return;
+            }
+            recorder.recordValue(Math.min(System.nanoTime() - scheduledTime, HIGHEST_TRACKABLE_LATENCY));
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.collections.ConcurrentLongSortedSet;
+import ru.example.models.BlockIdGenerator;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert with id generation: shared AtomicLong with boxed keys in ConcurrentHashMap
+ * against per-thread id blocks with primitive keys in ConcurrentLongObjectMap,
+ * ordered id set of repository as boxed ConcurrentSkipListSet against ConcurrentLongSortedSet,
+ * and the whole UsersRepository.save path that includes both of them.
+ * Compare gc.alloc.rate.norm (bytes per insert) with -prof gc, contention with -t 4.
+ * Maps and repository are recreated before every iteration, so all include amortized table growth.
+ *
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdAllocationBenchmark {
+    private static final Object VALUE = new Object();
+    private static final String USER_NAME = "Benchmark User";
+
+    private AtomicLong atomicCounter;
+    private Map<Long, Object> boxedMap;
+    private BlockIdGenerator blockGenerator;
+    private ConcurrentLongObjectMap<Object> primitiveMap;
+    private NavigableSet<Long> boxedOrderedIds;
+    private ConcurrentLongSortedSet primitiveOrderedIds;
+    private UsersRepository repository;
+
+    @Setup(Level.Iteration)
+    public void createMaps() {
+        atomicCounter = new AtomicLong();
+        boxedMap = new ConcurrentHashMap<>();
+        blockGenerator = new BlockIdGenerator();
+        primitiveMap = new ConcurrentLongObjectMap<>();
+        boxedOrderedIds = new ConcurrentSkipListSet<>();
+        primitiveOrderedIds = new ConcurrentLongSortedSet();
+        repository = new UsersRepository();
+    }
+
+    @Benchmark
+    public Object boxedInsert() {
+        Long id = atomicCounter.incrementAndGet();
+        return boxedMap.put(id, VALUE);
+    }
+
+    @Benchmark
+    public Object primitiveInsert() {
+        long id = blockGenerator.nextId();
+        return primitiveMap.put(id, VALUE);
+    }
+
+    @Benchmark
+    public long atomicIdOnly() {
+        return atomicCounter.incrementAndGet();
+    }
+
+    @Benchmark
+    public long blockIdOnly() {
+        return blockGenerator.nextId();
+    }
+
+    @Benchmark
+    public boolean boxedOrderedIdInsert() {
+        return boxedOrderedIds.add(blockGenerator.nextId());
+    }
+
+    @Benchmark
+    public boolean primitiveOrderedIdInsert() {
+        return primitiveOrderedIds.add(blockGenerator.nextId());
+    }
+
+    @Benchmark
+    public User repositorySave() {
+        return repository.save(new User(USER_NAME));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.example.exceptions.UserNotFoundException;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Not found lookup with exception that fills stack trace (as before) against stackless UserNotFoundException.
+ * Lookup is made from the given call stack depth: web request reaches controller at depth of about 100 frames,
+ * and cost of stack trace grows with depth. End-to-end 404 throughput is measured by HttpLoadTest
+ * with mix=getMissingUser:100.
+ *
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotFoundBenchmark {
+    @Param({"10", "100"})
+    private int stackDepth;
+
+    private UsersRepository repository;
+    private Long userId;
+    private Long missingUserId;
+
+    @Setup
+    public void fill() {
+        repository = new UsersRepository();
+        userId = repository.save(new User("Found")).getId();
+        missingUserId = userId + 1_000_000;
+    }
+
+    @Benchmark
+    public String found() {
+        return call(stackDepth, userId, false);
+    }
+
+    @Benchmark
+    public String notFoundWithStackTrace() {
+        return call(stackDepth, missingUserId, false);
+    }
+
+    @Benchmark
+    public String notFoundStackless() {
+        return call(stackDepth, missingUserId, true);
+    }
+
+    private String call(int depth, Long id, boolean stackless) {
+        if (depth > 0) {
+            return call(depth - 1, id, stackless);
+        }
+        try {
+            return repository.findById(id)
+                    .orElseThrow(() -> stackless ? new UserNotFoundException(id) : new StackTraceNotFoundException(id))
+                    .getName();
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * UserNotFoundException as it was before: with stack trace.
+     */
+    private static final class StackTraceNotFoundException extends RuntimeException {
+        StackTraceNotFoundException(Long id) {
+            super("Could not find user " + id);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.example.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.example.models.Contact;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for UsersRepository hot paths. Repository is filled with "records" users,
+ * one of them (book owner) has "records" contacts.
+ * Users and contacts added during iteration are deleted after it, so repository size stays the same.
+ * Single-threaded: -t 1, multi-threaded: -t 4 (or -t max), allocation profiling: -prof gc.
+ * 10M records need big heap: -jvmArgsAppend -Xmx16g.
+ *
+ * @since 17.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsersRepositoryBenchmark {
+    private static final String[] FIRST_NAMES = {"Mary", "John", "Mia", "Billy", "Olga", "Ivan", "Anna", "Peter",
+            "Maria", "Alex", "Elena", "Dmitry", "Sofia", "Nikita", "Irina", "Pavel"};
+    private static final String[] LAST_NAMES = {"Smith", "Ivanov", "Brown", "Petrova", "Miller", "Sidorov",
+            "Wilson", "Kuznetsova", "Taylor", "Popov", "Moore", "Volkova"};
+    private static final int QUERIES_COUNT = 1024;
+
+    @Param({"1000", "100000", "10000000"})
+    private int records;
+
+    private UsersRepository repository;
+    private Long[] userIds;
+    private Long bookOwnerId;
+    private Long[] contactIds;
+    private String[] nameQueries;
+    private String[] phoneQueries;
+    private final Queue<Long> addedUserIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> addedContactIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void fillRepository() {
+        Random random = new Random(42);
+        repository = new UsersRepository();
+        userIds = new Long[records];
+        for (int i = 0; i < records; i++) {
+            userIds[i] = repository.save(new User(userName(i))).getId();
+        }
+        bookOwnerId = userIds[0];
+        contactIds = new Long[records];
+        String[] phones = new String[records];
+        for (int i = 0; i < records; i++) {
+            phones[i] = phone(random);
+            contactIds[i] = repository.addContact(bookOwnerId, new Contact(userName(i), phones[i])).getId();
+        }
+        nameQueries = new String[QUERIES_COUNT];
+        phoneQueries = new String[QUERIES_COUNT];
+        for (int i = 0; i < QUERIES_COUNT; i++) {
+            nameQueries[i] = substring(userName(random.nextInt(records)), 3 + random.nextInt(3), random);
+            phoneQueries[i] = substring(phones[random.nextInt(records)], 4 + random.nextInt(3), random);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteAdded() {
+        Long id;
+        while ((id = addedUserIds.poll()) != null) {
+            repository.deleteById(id);
+        }
+        while ((id = addedContactIds.poll()) != null) {
+            repository.deleteContactByContactId(bookOwnerId, id);
+        }
+    }
+
+    @Benchmark
+    public User save() {
+        User user = repository.save(new User(userName(ThreadLocalRandom.current().nextInt(records))));
+        addedUserIds.add(user.getId());
+        return user;
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return repository.findById(userIds[ThreadLocalRandom.current().nextInt(records)]);
+    }
+
+    @Benchmark
+    public List<User> searchUsers() {
+        return repository.searchUsers(nameQueries[ThreadLocalRandom.current().nextInt(QUERIES_COUNT)]);
+    }
+
+    @Benchmark
+    public List<Contact> searchContacts() {
+        return repository.searchContacts(bookOwnerId, phoneQueries[ThreadLocalRandom.current().nextInt(QUERIES_COUNT)]);
+    }
+
+    @Benchmark
+    public Contact addContact() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Contact contact = repository.addContact(bookOwnerId, new Contact(userName(random.nextInt(records)), phone(random)));
+        addedContactIds.add(contact.getId());
+        return contact;
+    }
+
+    @Benchmark
+    public Contact updateContact() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long contactId = contactIds[random.nextInt(records)];
+        return repository.updateContact(bookOwnerId, contactId, new Contact(userName(random.nextInt(records)), phone(random)));
+    }
+
+    private static String userName(int index) {
+        return FIRST_NAMES[index % FIRST_NAMES.length] + " "
+                + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length] + " " + index;
+    }
+
+    private static String phone(Random random) {
+        return "79" + (100_000_000 + random.nextInt(900_000_000));
+    }
+
+    private static String substring(String text, int length, Random random) {
+        int start = random.nextInt(text.length() - length + 1);
+        return text.substring(start, start + length);
+    }
+}
@@ -1,15 +1,21 @@
 package ru.example;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import ru.example.models.Contact;
 import ru.example.models.User;
+import ru.example.persistence.BinarySnapshot;
 import ru.example.repositories.UsersRepository;
 
+import java.nio.file.Paths;
+
 /**
  * Class for creation sample data in the repository when starting application.
+ * Sample data is created only if repository is empty, i.e. nothing was restored from disk.
+ * If "telephonebook.data.snapshot" is set then data is loaded from this binary snapshot instead of sample data.
  *
  * @author uolpakova
  * @since 05.12.2019
@@ -18,8 +24,20 @@ import ru.example.repositories.UsersRepository;
 @Slf4j
 public class LoadData {
     @Bean
-    CommandLineRunner initData(UsersRepository repository) {
+    CommandLineRunner initData(UsersRepository repository,
+                               @Value("${telephonebook.data.snapshot:}") String snapshotPath) {
         return args -> {
+            if (!repository.findAll().isEmpty()) {
+                log.info("Repository is not empty, preloading is skipped");
+                return;
+            }
+            if (!snapshotPath.isEmpty()) {
+                long start = System.nanoTime();
+                long usersCount = BinarySnapshot.load(Paths.get(snapshotPath), repository);
+                log.info("Preloading " + usersCount + " users from " + snapshotPath + " took "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return;
+            }
             User user1 = new User("Mary");
             user1.addContact(new Contact("Billy", "88005553535"));
             user1.addContact(new Contact("John", "88005555555"));
@@ -0,0 +1,365 @@
+package ru.example.collections;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent map from primitive long keys to objects without boxing keys and without entry objects.
+ * Map is split into segments, every segment is an open addressing hash table with linear probing.
+ * Reads are lock-free, writes lock only their segment.
+ * Removed entry keeps its key with null value, so keys never move inside a table and readers never miss them;
+ * such slots are reused by the same key and dropped when table is rebuilt.
+ * Key 0 is reserved for empty slots and cannot be stored. Null values are not allowed.
+ * Iteration is weakly consistent, like in ConcurrentHashMap.
+ *
+ * @since 17.10.2026
+ */
+public class ConcurrentLongObjectMap<V> {
+    private static final int SEGMENTS_COUNT = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS_COUNT);
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectMap() {
+        segments = new Segment[SEGMENTS_COUNT];
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Method puts value to map.
+     *
+     * @param key   - key, not 0
+     * @param value - value, not null
+     * @return V - previous value or null
+     */
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        Objects.requireNonNull(value);
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * Method puts value to map if there is no value for key.
+     *
+     * @param key   - key, not 0
+     * @param value - value, not null
+     * @return V - current value or null if value was put
+     */
+    public V putIfAbsent(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        Objects.requireNonNull(value);
+        long hash = hash(key);
+        return segmentFor(hash).putIfAbsent(key, hash, value);
+    }
+
+    /**
+     * Method removes value from map.
+     *
+     * @param key - key
+     * @return V - removed value or null
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Segment<V> segment : segments) {
+            if (segment.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method returns read-only view of values.
+     *
+     * @return Collection<V> - weakly consistent view of values
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new EntryIterator<V, V>(segments) {
+                    @Override
+                    V current(long key, V value) {
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongObjectMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Method returns read-only view of map with boxed keys, keys are boxed only while view is iterated.
+     *
+     * @return Map<Long, V> - weakly consistent view of map
+     */
+    public Map<Long, V> asMap() {
+        return new AbstractMap<Long, V>() {
+            @Override
+            public V get(Object key) {
+                return key instanceof Long ? ConcurrentLongObjectMap.this.get((Long) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentLongObjectMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ConcurrentLongObjectMap.this.isEmpty();
+            }
+
+            @Override
+            public Collection<V> values() {
+                return ConcurrentLongObjectMap.this.values();
+            }
+
+            @Override
+            public Set<Entry<Long, V>> entrySet() {
+                return new AbstractSet<Entry<Long, V>>() {
+                    @Override
+                    public Iterator<Entry<Long, V>> iterator() {
+                        return new EntryIterator<V, Entry<Long, V>>(segments) {
+                            @Override
+                            Entry<Long, V> current(long key, V value) {
+                                return new SimpleImmutableEntry<>(key, value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return ConcurrentLongObjectMap.this.size();
+                    }
+                };
+            }
+        };
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * Murmur3 finalizer: ids are sequential, so low and high bits must be mixed for both segment and slot.
+     */
+    static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Table<V> {
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<V> values;
+        private final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private volatile Table<V> table = new Table<>(MIN_CAPACITY);
+        private volatile int size;
+        private int usedSlots;
+
+        V get(long key, long hash) {
+            Table<V> current = table;
+            for (int i = (int) hash & current.mask; ; i = (i + 1) & current.mask) {
+                long slotKey = current.keys.get(i);
+                if (slotKey == key) {
+                    return current.values.get(i);
+                }
+                if (slotKey == EMPTY) {
+                    return null;
+                }
+            }
+        }
+
+        synchronized V put(long key, long hash, V value) {
+            Table<V> current = table;
+            int slot = findSlot(current, key, hash);
+            if (current.keys.get(slot) == EMPTY) {
+                if ((usedSlots + 1) * 4L > current.keys.length() * 3L) {
+                    current = rebuild();
+                    slot = findSlot(current, key, hash);
+                }
+                current.values.set(slot, value);
+                current.keys.set(slot, key);
+                usedSlots++;
+                size++;
+                return null;
+            }
+            V previousValue = current.values.getAndSet(slot, value);
+            if (previousValue == null) {
+                size++;
+            }
+            return previousValue;
+        }
+
+        synchronized V putIfAbsent(long key, long hash, V value) {
+            V currentValue = get(key, hash);
+            return currentValue != null ? currentValue : put(key, hash, value);
+        }
+
+        synchronized V remove(long key, long hash) {
+            Table<V> current = table;
+            int slot = findSlot(current, key, hash);
+            if (current.keys.get(slot) == EMPTY) {
+                return null;
+            }
+            V previousValue = current.values.getAndSet(slot, null);
+            if (previousValue != null) {
+                size--;
+            }
+            return previousValue;
+        }
+
+        synchronized void clear() {
+            table = new Table<>(MIN_CAPACITY);
+            size = 0;
+            usedSlots = 0;
+        }
+
+        /**
+         * Method copies live entries to new table, size of new table is chosen by live entries count,
+         * so table with many removed entries may stay the same size or shrink.
+         */
+        private Table<V> rebuild() {
+            Table<V> current = table;
+            int capacity = MIN_CAPACITY;
+            while ((size + 1) * 2L > capacity) {
+                capacity <<= 1;
+            }
+            Table<V> rebuilt = new Table<>(capacity);
+            for (int i = 0; i < current.keys.length(); i++) {
+                V value = current.values.get(i);
+                if (value != null) {
+                    long key = current.keys.get(i);
+                    int slot = findSlot(rebuilt, key, hash(key));
+                    rebuilt.values.set(slot, value);
+                    rebuilt.keys.set(slot, key);
+                }
+            }
+            table = rebuilt;
+            usedSlots = size;
+            return rebuilt;
+        }
+
+        private static int findSlot(Table<?> table, long key, long hash) {
+            int i = (int) hash & table.mask;
+            while (true) {
+                long slotKey = table.keys.get(i);
+                if (slotKey == key || slotKey == EMPTY) {
+                    return i;
+                }
+                i = (i + 1) & table.mask;
+            }
+        }
+    }
+
+    private abstract static class EntryIterator<V, T> implements Iterator<T> {
+        private final Segment<V>[] segments;
+        private int segmentIndex = -1;
+        private Table<V> table;
+        private int slot;
+        private T next;
+
+        EntryIterator(Segment<V>[] segments) {
+            this.segments = segments;
+            advance();
+        }
+
+        abstract T current(long key, V value);
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (true) {
+                if (table == null || slot >= table.keys.length()) {
+                    if (++segmentIndex >= segments.length) {
+                        return;
+                    }
+                    table = segments[segmentIndex].table;
+                    slot = 0;
+                    continue;
+                }
+                int i = slot++;
+                V value = table.values.get(i);
+                if (value != null) {
+                    next = current(table.keys.get(i), value);
+                    return;
+                }
+            }
+        }
+    }
+}
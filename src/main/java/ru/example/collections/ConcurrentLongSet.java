@@ -0,0 +1,146 @@
+package ru.example.collections;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Concurrent set of primitive longs without boxing: one open addressing hash table with linear probing,
+ * about 12 bytes per element instead of node and boxed Long of concurrent hash set.
+ * Reads are lock-free, writes lock the set, like one segment of ConcurrentLongObjectMap.
+ * Removed element is replaced by tombstone, so elements never move inside a table and readers never miss them;
+ * tombstones are dropped when table is rebuilt.
+ * Values 0 and Long.MIN_VALUE are reserved for empty slots and tombstones and cannot be stored.
+ * Iteration is weakly consistent.
+ *
+ * @since 17.10.2026
+ */
+public class ConcurrentLongSet {
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private volatile AtomicLongArray table = new AtomicLongArray(MIN_CAPACITY);
+    private volatile int size;
+    private int usedSlots;
+
+    public boolean contains(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            return false;
+        }
+        AtomicLongArray current = table;
+        int mask = current.length() - 1;
+        for (int i = (int) ConcurrentLongObjectMap.hash(value) & mask; ; i = (i + 1) & mask) {
+            long slotValue = current.get(i);
+            if (slotValue == value) {
+                return true;
+            }
+            if (slotValue == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Method adds value to set.
+     *
+     * @param value - value, not 0 and not Long.MIN_VALUE
+     * @return true if value was added, false if it is already in set
+     */
+    public synchronized boolean add(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            throw new IllegalArgumentException("Value " + value + " is reserved");
+        }
+        if (contains(value)) {
+            return false;
+        }
+        if ((usedSlots + 1) * 4L > table.length() * 3L) {
+            rebuild();
+        }
+        AtomicLongArray current = table;
+        int mask = current.length() - 1;
+        int i = (int) ConcurrentLongObjectMap.hash(value) & mask;
+        while (current.get(i) != EMPTY && current.get(i) != REMOVED) {
+            i = (i + 1) & mask;
+        }
+        if (current.get(i) == EMPTY) {
+            usedSlots++;
+        }
+        current.set(i, value);
+        size++;
+        return true;
+    }
+
+    /**
+     * Method removes value from set.
+     *
+     * @param value - value
+     * @return true if value was removed, false if it was not in set
+     */
+    public synchronized boolean remove(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            return false;
+        }
+        AtomicLongArray current = table;
+        int mask = current.length() - 1;
+        for (int i = (int) ConcurrentLongObjectMap.hash(value) & mask; ; i = (i + 1) & mask) {
+            long slotValue = current.get(i);
+            if (slotValue == value) {
+                current.set(i, REMOVED);
+                size--;
+                return true;
+            }
+            if (slotValue == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method passes every value of set to action.
+     *
+     * @param action - action for every value
+     */
+    public void forEach(LongConsumer action) {
+        AtomicLongArray current = table;
+        for (int i = 0; i < current.length(); i++) {
+            long value = current.get(i);
+            if (value != EMPTY && value != REMOVED) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Method copies live values to new table, size of new table is chosen by live values count,
+     * so table with many tombstones may stay the same size or shrink.
+     */
+    private void rebuild() {
+        AtomicLongArray current = table;
+        int capacity = MIN_CAPACITY;
+        while ((size + 1) * 2L > capacity) {
+            capacity <<= 1;
+        }
+        AtomicLongArray rebuilt = new AtomicLongArray(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < current.length(); i++) {
+            long value = current.get(i);
+            if (value != EMPTY && value != REMOVED) {
+                int slot = (int) ConcurrentLongObjectMap.hash(value) & mask;
+                while (rebuilt.get(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                rebuilt.set(slot, value);
+            }
+        }
+        table = rebuilt;
+        usedSlots = size;
+    }
+}
@@ -0,0 +1,277 @@
+package ru.example.collections;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent ordered set of non-negative primitive longs for dense values like generated ids.
+ * Values are kept as bits of chunks, every chunk covers CHUNK_SIZE consecutive values,
+ * chunks are ordered in skip list by chunk number. So dense values take about one bit each
+ * and skip list node with boxed key is created once per chunk, not once per value.
+ * Add and remove are lock-free: bit is set or cleared with CAS. Chunk counts its values and values
+ * being added, chunk whose count drops to zero is retired and removed from skip list,
+ * add never sets bit in retired chunk, it creates new chunk instead.
+ * Last used chunk is cached, so adding of consecutive values neither boxes keys nor searches skip list.
+ * Iteration is ordered and weakly consistent.
+ *
+ * @since 17.10.2026
+ */
+public class ConcurrentLongSortedSet {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int WORDS = CHUNK_SIZE / Long.SIZE;
+
+    private final ConcurrentSkipListMap<Long, Chunk> chunks = new ConcurrentSkipListMap<>();
+    private volatile Chunk lastChunk;
+
+    public boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        Chunk chunk = findChunk(value >>> CHUNK_BITS);
+        return chunk != null && chunk.contains(bit(value));
+    }
+
+    /**
+     * Method adds value to set.
+     *
+     * @param value - value, not negative
+     * @return true if value was added, false if it is already in set
+     */
+    public boolean add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value " + value + " is negative");
+        }
+        long chunkNumber = value >>> CHUNK_BITS;
+        while (true) {
+            Chunk chunk = liveChunk(chunkNumber);
+            if (chunk == null || !chunk.reserve()) {
+                continue;
+            }
+            if (chunk.set(bit(value))) {
+                return true;
+            }
+            release(chunk);
+            return false;
+        }
+    }
+
+    /**
+     * Method removes value from set.
+     *
+     * @param value - value
+     * @return true if value was removed, false if it was not in set
+     */
+    public boolean remove(long value) {
+        if (value < 0) {
+            return false;
+        }
+        Chunk chunk = findChunk(value >>> CHUNK_BITS);
+        if (chunk == null || !chunk.clear(bit(value))) {
+            return false;
+        }
+        release(chunk);
+        return true;
+    }
+
+    /**
+     * Method removes all values. Values added concurrently with clear may be removed or kept.
+     */
+    public void clear() {
+        for (Chunk chunk : chunks.values()) {
+            chunk.retire();
+            chunks.remove(chunk.number, chunk);
+        }
+    }
+
+    /**
+     * Method iterates values greater than given one in ascending order.
+     *
+     * @param after - iteration starts after this value, negative to start from the smallest value
+     * @return PrimitiveIterator.OfLong - weakly consistent iterator
+     */
+    public PrimitiveIterator.OfLong iterator(long after) {
+        return new ValueIterator(after < 0 ? 0 : after + 1);
+    }
+
+    private Chunk findChunk(long chunkNumber) {
+        Chunk chunk = lastChunk;
+        if (chunk != null && chunk.number == chunkNumber && !chunk.isRetired()) {
+            return chunk;
+        }
+        return chunks.get(chunkNumber);
+    }
+
+    /**
+     * Method returns chunk that is not retired yet, creating it if necessary,
+     * or null if chunk was changed concurrently and lookup must be repeated.
+     */
+    private Chunk liveChunk(long chunkNumber) {
+        Chunk chunk = lastChunk;
+        if (chunk != null && chunk.number == chunkNumber && !chunk.isRetired()) {
+            return chunk;
+        }
+        chunk = chunks.get(chunkNumber);
+        if (chunk == null || chunk.isRetired()) {
+            Chunk created = new Chunk(chunkNumber);
+            boolean installed = chunk == null
+                    ? chunks.putIfAbsent(chunkNumber, created) == null
+                    : chunks.replace(chunkNumber, chunk, created);
+            if (!installed) {
+                return null;
+            }
+            chunk = created;
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private void release(Chunk chunk) {
+        if (chunk.release()) {
+            chunks.remove(chunk.number, chunk);
+        }
+    }
+
+    private static int bit(long value) {
+        return (int) value & (CHUNK_SIZE - 1);
+    }
+
+    private static final class Chunk {
+        private static final int RETIRED = -1;
+
+        private final long number;
+        private final AtomicLongArray words = new AtomicLongArray(WORDS);
+        /**
+         * Count of set bits and of adds in progress, negative when chunk is retired and must not be used.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        Chunk(long number) {
+            this.number = number;
+        }
+
+        boolean isRetired() {
+            return count.get() < 0;
+        }
+
+        void retire() {
+            count.set(RETIRED);
+        }
+
+        boolean reserve() {
+            while (true) {
+                int current = count.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Method releases reserved or removed value and returns true if chunk became retired.
+         */
+        boolean release() {
+            return count.decrementAndGet() == 0 && count.compareAndSet(0, RETIRED);
+        }
+
+        boolean contains(int bit) {
+            return (words.get(bit / Long.SIZE) & 1L << bit) != 0;
+        }
+
+        boolean set(int bit) {
+            int word = bit / Long.SIZE;
+            long mask = 1L << bit;
+            while (true) {
+                long current = words.get(word);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(word, current, current | mask)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean clear(int bit) {
+            int word = bit / Long.SIZE;
+            long mask = 1L << bit;
+            while (true) {
+                long current = words.get(word);
+                if ((current & mask) == 0) {
+                    return false;
+                }
+                if (words.compareAndSet(word, current, current & ~mask)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Method returns the first set bit starting from given one or -1 if there is no such bit.
+         */
+        int nextSetBit(int from) {
+            int word = from / Long.SIZE;
+            if (word >= WORDS) {
+                return -1;
+            }
+            long bits = words.get(word) & -1L << from;
+            while (bits == 0) {
+                if (++word == WORDS) {
+                    return -1;
+                }
+                bits = words.get(word);
+            }
+            return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        }
+    }
+
+    private final class ValueIterator implements PrimitiveIterator.OfLong {
+        private final Iterator<Chunk> chunkIterator;
+        private final long from;
+        private Chunk chunk;
+        private int position;
+        private long nextValue = -1;
+
+        ValueIterator(long from) {
+            this.from = from;
+            this.chunkIterator = from < 0
+                    ? Collections.emptyIterator()
+                    : chunks.tailMap(from >>> CHUNK_BITS, true).values().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextValue < 0) {
+                int bit = chunk == null ? -1 : chunk.nextSetBit(position);
+                if (bit >= 0) {
+                    nextValue = chunk.number << CHUNK_BITS | bit;
+                    position = bit + 1;
+                } else if (chunkIterator.hasNext()) {
+                    chunk = chunkIterator.next();
+                    position = chunk.number == from >>> CHUNK_BITS ? bit(from) : 0;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long value = nextValue;
+            nextValue = -1;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.example.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.example.models.Contact;
+import ru.example.models.ImportError;
+import ru.example.models.ImportResult;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of users and contacts from NDJSON or CSV request body.
+ * Body is parsed line by line while it is being received and records are saved to repository by batches,
+ * so memory does not depend on body size. Result has counts of records and only first MAX_REPORTED_ERRORS errors.
+ * CSV for users has one column "name", CSV for contacts has columns "name,phone", header line is optional.
+ *
+ * @since 17.10.2026
+ */
+class BulkImporter {
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String USERS_CSV_HEADER = "name";
+    private static final String CONTACTS_CSV_HEADER = "name,phone";
+
+    private final UsersRepository repository;
+    private final ObjectReader userReader;
+    private final ObjectReader contactReader;
+
+    BulkImporter(UsersRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.userReader = objectMapper.readerFor(User.class);
+        this.contactReader = objectMapper.readerFor(Contact.class);
+    }
+
+    ImportResult importUsersNdjson(InputStream body) throws IOException {
+        return importRecords(body, null, userReader::readValue, repository::saveAll);
+    }
+
+    ImportResult importUsersCsv(InputStream body) throws IOException {
+        return importRecords(body, USERS_CSV_HEADER, line -> new User(csvFields(line, 1).get(0)),
+                repository::saveAll);
+    }
+
+    ImportResult importContactsNdjson(Long userId, InputStream body) throws IOException {
+        return importRecords(body, null, contactReader::readValue,
+                (List<Contact> contacts) -> repository.addContacts(userId, contacts));
+    }
+
+    ImportResult importContactsCsv(Long userId, InputStream body) throws IOException {
+        return importRecords(body, CONTACTS_CSV_HEADER, line -> {
+            List<String> fields = csvFields(line, 2);
+            return new Contact(fields.get(0), fields.get(1));
+        }, (List<Contact> contacts) -> repository.addContacts(userId, contacts));
+    }
+
+    private <T> ImportResult importRecords(InputStream body, String header, LineParser<T> parser,
+                                           Consumer<List<T>> batchSaver) throws IOException {
+        ImportResult result = new ImportResult();
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16);
+        long lineNumber = 0;
+        long batchFirstLine = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (header != null && result.getReceived() == 0 && header.equalsIgnoreCase(line.replace(" ", ""))) {
+                continue;
+            }
+            result.setReceived(result.getReceived() + 1);
+            try {
+                T record = parser.parse(line);
+                if (record == null) {
+                    throw new IllegalArgumentException("Record is null");
+                }
+                if (batch.isEmpty()) {
+                    batchFirstLine = lineNumber;
+                }
+                batch.add(record);
+            } catch (IOException | RuntimeException e) {
+                result.setFailed(result.getFailed() + 1);
+                if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                    result.getErrors().add(new ImportError(lineNumber, e.getMessage()));
+                }
+            }
+            if (batch.size() == BATCH_SIZE) {
+                saveBatch(batch, batchFirstLine, batchSaver, result);
+            }
+        }
+        saveBatch(batch, batchFirstLine, batchSaver, result);
+        return result;
+    }
+
+    /**
+     * Failed batch is counted as failed records and reported as one error at its first line,
+     * import goes on with the next batch.
+     */
+    private <T> void saveBatch(List<T> batch, long firstLine, Consumer<List<T>> batchSaver, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchSaver.accept(batch);
+            result.setImported(result.getImported() + batch.size());
+        } catch (RuntimeException e) {
+            result.setFailed(result.getFailed() + batch.size());
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new ImportError(firstLine,
+                        "Batch of " + batch.size() + " records failed: " + e.getMessage()));
+            }
+        }
+        batch.clear();
+    }
+
+    private static List<String> csvFields(String line, int columnsCount) {
+        List<String> fields = Csv.parse(line);
+        if (fields.size() != columnsCount) {
+            throw new IllegalArgumentException("Expected " + columnsCount + " columns but found " + fields.size());
+        }
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface LineParser<T> {
+        T parse(String line) throws IOException;
+    }
+}
@@ -0,0 +1,338 @@
+package ru.example.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import ru.example.models.ContactChanges;
+import ru.example.models.ContactFeedEntry;
+import ru.example.models.UserInfoChange;
+import ru.example.repositories.ContactChangeFeed;
+import ru.example.repositories.ContactFeedSubscriber;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events streams of telephone book changes.
+ * Streams are subscribed to ContactChangeFeed: threads that change repository only put events to bounded buffer
+ * of every stream, events are serialized and written by "sse-sender" threads.
+ * Responses are written with servlet non-blocking I/O (WriteListener): sender writes only while output is ready
+ * and leaves the stream when it is not, container resumes writing in onWritePossible. So client that does not
+ * read never holds a sender thread, and neither writers nor other clients wait for it.
+ * When buffer of stream is full, for example after batch of many changes, buffered events are replaced
+ * by one "resync" event with the sequence before them: client gets missed changes from "/changes?since="
+ * or reloads telephone book if feed does not keep them, and stream goes on.
+ * Response is completed only by the thread that writes to it.
+ *
+ * @since 17.10.2026
+ */
+@Component
+class ContactChangeStreams {
+    static final String CONTACT_EVENT = "contact";
+    static final String USER_EVENT = "user";
+    static final String RESYNC_EVENT = "resync";
+    static final String DELETED_EVENT = "deleted";
+
+    private final ContactChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final AtomicInteger streamsCount = new AtomicInteger();
+    private final Counter overflowedStreams;
+
+    @Autowired
+    ContactChangeStreams(ContactChangeFeed changeFeed, ObjectMapper objectMapper,
+                         @Value("${telephonebook.sse.buffer-size:256}") int bufferSize,
+                         @Value("${telephonebook.sse.timeout-seconds:600}") long timeoutSeconds,
+                         @Value("${telephonebook.sse.sender-threads:4}") int senderThreads,
+                         MeterRegistry meterRegistry) {
+        this(changeFeed, objectMapper, bufferSize, TimeUnit.SECONDS.toMillis(timeoutSeconds),
+                Executors.newFixedThreadPool(senderThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "sse-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                }), meterRegistry);
+    }
+
+    ContactChangeStreams(ContactChangeFeed changeFeed, ObjectMapper objectMapper, int bufferSize, long timeoutMillis,
+                         ExecutorService senders, MeterRegistry meterRegistry) {
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = senders;
+        Gauge.builder("telephonebook.sse.streams", streamsCount, AtomicInteger::get)
+                .description("Open streams of telephone book changes")
+                .register(meterRegistry);
+        this.overflowedStreams = Counter.builder("telephonebook.sse.overflows")
+                .description("Buffer overflows of streams replaced by resync event")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Method switches request to async mode and streams changes of telephone book to response.
+     *
+     * @param userId   - telephone book owner id
+     * @param since    - sequence to replay changes after or null if only new changes are needed
+     * @param request  - request of client
+     * @param response - response which gets "contact", "user", "resync" and "deleted" events
+     * @throws IOException if response output cannot be opened
+     */
+    void subscribe(long userId, Long since, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+        Stream stream = new Stream(userId, asyncContext, response.getOutputStream());
+        streamsCount.incrementAndGet();
+        asyncContext.addListener(stream);
+        stream.output.setWriteListener(stream);
+        changeFeed.subscribe(userId, since, stream);
+    }
+
+    private byte[] encode(Event event) throws IOException {
+        StringBuilder text = new StringBuilder(64).append("event:").append(event.name).append('\n');
+        if (event.id != null) {
+            text.append("id:").append(event.id).append('\n');
+        }
+        text.append("data:").append(objectMapper.writeValueAsString(event.data)).append("\n\n");
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Event {
+        private final String name;
+        private final Long id;
+        private final Object data;
+
+        Event(String name, Long id, Object data) {
+            this.name = name;
+            this.id = id;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Stream of one client. Buffer and flags are guarded by stream monitor, which is never held while writing.
+     * Only one thread writes at a time: the one that set "sending".
+     */
+    private final class Stream implements ContactFeedSubscriber, WriteListener, AsyncListener {
+        private final long userId;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream output;
+        private final ArrayDeque<Event> buffer = new ArrayDeque<>();
+        private boolean sending;
+        /**
+         * Container called onWritePossible while sender was writing, so output may be ready again.
+         */
+        private boolean writePossible;
+        private boolean flushRequired = true;
+        private boolean completing;
+        private boolean closed;
+
+        Stream(long userId, AsyncContext asyncContext, ServletOutputStream output) {
+            this.userId = userId;
+            this.asyncContext = asyncContext;
+            this.output = output;
+        }
+
+        @Override
+        public synchronized void replay(ContactChanges changes) {
+            if (changes.isResyncRequired()) {
+                buffer.addLast(new Event(RESYNC_EVENT, changes.getLastSequence(), changes.getLastSequence()));
+            }
+            for (ContactFeedEntry entry : changes.getChanges()) {
+                buffer.addLast(new Event(CONTACT_EVENT, entry.getSequence(), entry));
+            }
+            scheduleSending();
+        }
+
+        @Override
+        public boolean contactChanged(ContactFeedEntry entry) {
+            return offer(new Event(CONTACT_EVENT, entry.getSequence(), entry));
+        }
+
+        @Override
+        public boolean userInfoUpdated(UserInfoChange change) {
+            return offer(new Event(USER_EVENT, change.getSequence(), change));
+        }
+
+        @Override
+        public boolean resyncRequired(long sequence) {
+            return offer(new Event(RESYNC_EVENT, sequence, sequence));
+        }
+
+        @Override
+        public synchronized void userDeleted() {
+            if (!completing) {
+                buffer.addLast(new Event(DELETED_EVENT, null, userId));
+                completing = true;
+                scheduleSending();
+            }
+        }
+
+        /**
+         * Event that does not fit to buffer is replaced with buffered events by resync event.
+         * Its sequence is the one of existing resync event at buffer head or the one before the first
+         * buffered change, so client asks for all changes that were not written.
+         */
+        private boolean offer(Event event) {
+            synchronized (this) {
+                if (completing) {
+                    return false;
+                }
+                if (buffer.size() < bufferSize) {
+                    buffer.addLast(event);
+                    scheduleSending();
+                    return true;
+                }
+                Event first = buffer.peekFirst();
+                long sequence = RESYNC_EVENT.equals(first.name) ? first.id : first.id - 1;
+                buffer.clear();
+                buffer.addLast(new Event(RESYNC_EVENT, sequence, sequence));
+                scheduleSending();
+            }
+            overflowedStreams.increment();
+            return true;
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                writePossible = true;
+                scheduleSending();
+            }
+        }
+
+        private void scheduleSending() {
+            if (!sending && !closed) {
+                sending = true;
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    sending = false;
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                while (true) {
+                    Event event;
+                    boolean flush;
+                    synchronized (this) {
+                        writePossible = false;
+                    }
+                    boolean ready = output.isReady();
+                    synchronized (this) {
+                        if (closed || !ready && !writePossible) {
+                            sending = false;
+                            return;
+                        }
+                        if (!ready) {
+                            continue;
+                        }
+                        event = buffer.pollFirst();
+                        flush = event == null && flushRequired;
+                        flushRequired = event != null;
+                        if (event == null && !flush) {
+                            sending = false;
+                            if (completing) {
+                                break;
+                            }
+                            return;
+                        }
+                    }
+                    if (flush) {
+                        output.flush();
+                    } else {
+                        output.write(encode(event));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                synchronized (this) {
+                    sending = false;
+                }
+            }
+            complete();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // request was already completed by container
+            }
+            closed();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            closed();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void closed() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                completing = true;
+                buffer.clear();
+            }
+            streamsCount.decrementAndGet();
+            changeFeed.unsubscribe(userId, this);
+        }
+    }
+}
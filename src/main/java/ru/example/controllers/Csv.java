@@ -0,0 +1,72 @@
+package ru.example.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal CSV (RFC 4180) support: comma separated fields, fields with commas or quotes are quoted,
+ * quotes inside quoted fields are doubled. Multiline fields are not supported.
+ *
+ * @since 17.10.2026
+ */
+final class Csv {
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private Csv() {
+    }
+
+    /**
+     * Method splits CSV line to fields.
+     *
+     * @param line - CSV line without line separator
+     * @return List<String> - line fields
+     * @throws IllegalArgumentException if quoted field is not closed
+     */
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char current = line.charAt(i);
+            if (quoted) {
+                if (current != '"') {
+                    field.append(current);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (current == '"') {
+                quoted = true;
+            } else if (current == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(current);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Method converts value to CSV field, quoting it if needed.
+     *
+     * @param value - field value, null is written as empty field
+     * @return String - CSV field
+     */
+    static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,70 @@
+package ru.example.controllers;
+
+import ru.example.models.Contact;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export of the whole telephone book dataset as NDJSON (one user with contacts per line)
+ * or CSV (one contact per line: "userId,userName,contactId,contactName,contactPhone",
+ * users without contacts have empty contact columns).
+ * Users are read by weakly consistent iterator and written straight to output stream,
+ * so writers are not blocked and memory does not depend on dataset size.
+ *
+ * @since 17.10.2026
+ */
+class DataExporter {
+    static final String CSV_HEADER = "userId,userName,contactId,contactName,contactPhone";
+
+    private final UsersRepository repository;
+    private final NdjsonWriter ndjsonWriter;
+
+    DataExporter(UsersRepository repository, NdjsonWriter ndjsonWriter) {
+        this.repository = repository;
+        this.ndjsonWriter = ndjsonWriter;
+    }
+
+    void export(OutputStream outputStream, boolean csv, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, 1 << 16) : outputStream;
+        if (csv) {
+            writeCsv(repository.iterateAll(null), target);
+        } else {
+            ndjsonWriter.write(repository.iterateAll(null), target);
+        }
+        target.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+    }
+
+    private void writeCsv(Iterator<User> users, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (users.hasNext()) {
+            User user = users.next();
+            String userColumns = Csv.field(user.getId()) + ',' + Csv.field(user.getName()) + ',';
+            Iterator<Contact> contacts = user.iterateContacts(null);
+            if (!contacts.hasNext()) {
+                writer.write(userColumns);
+                writer.write(",,\n");
+            }
+            while (contacts.hasNext()) {
+                Contact contact = contacts.next();
+                writer.write(userColumns);
+                writer.write(Csv.field(contact.getId()));
+                writer.write(',');
+                writer.write(Csv.field(contact.getName()));
+                writer.write(',');
+                writer.write(Csv.field(contact.getPhone()));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.example.controllers;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import ru.example.models.Contact;
+import ru.example.models.MemoryReport;
+import ru.example.models.StringPool;
+import ru.example.storage.ContactStorageConfiguration;
+import ru.example.storage.OffHeapContactArena;
+
+/**
+ * Actuator endpoint GET "/actuator/memory" with memory usage of contacts and bytes saved by names pool.
+ *
+ * @since 17.10.2026
+ */
+@Component
+@Endpoint(id = "memory")
+public class MemoryReportEndpoint {
+    private final ContactStorageConfiguration contactStorage;
+
+    public MemoryReportEndpoint(ContactStorageConfiguration contactStorage) {
+        this.contactStorage = contactStorage;
+    }
+
+    /**
+     * Method builds memory report.
+     *
+     * @return MemoryReport - current memory usage
+     */
+    @ReadOperation
+    public MemoryReport report() {
+        MemoryReport report = new MemoryReport();
+        Runtime runtime = Runtime.getRuntime();
+        report.setHeapUsedBytes(runtime.totalMemory() - runtime.freeMemory());
+        report.setHeapMaxBytes(runtime.maxMemory());
+        report.setContactStorage(contactStorage.getStorage());
+        OffHeapContactArena arena = contactStorage.getArena();
+        if (arena != null) {
+            report.setOffHeapAllocatedBytes(arena.allocatedBytes());
+            report.setOffHeapGarbageBytes(arena.garbageBytes());
+            report.setOffHeapContacts(arena.liveRows());
+        }
+        StringPool namePool = Contact.namePool();
+        report.setNamePoolCapacity(namePool.capacity());
+        report.setNamePoolLookups(namePool.lookups());
+        report.setNamePoolHits(namePool.hits());
+        report.setNamePoolSavedBytes(namePool.savedBytes());
+        return report;
+    }
+}
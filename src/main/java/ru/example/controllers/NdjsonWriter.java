@@ -0,0 +1,52 @@
+package ru.example.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * Writer for newline delimited JSON (NDJSON) responses.
+ * Elements are serialized one by one straight to the response stream, so memory does not depend on elements count.
+ *
+ * @since 17.10.2026
+ */
+class NdjsonWriter {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter elementWriter;
+
+    NdjsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Method creates response body which writes elements as NDJSON.
+     * Elements are requested only when response is written.
+     *
+     * @param elements - supplier of elements to write
+     * @return StreamingResponseBody - response body
+     */
+    StreamingResponseBody body(Supplier<? extends Iterator<?>> elements) {
+        return outputStream -> write(elements.get(), outputStream);
+    }
+
+    void write(Iterator<?> elements, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (elements.hasNext()) {
+                elementWriter.writeValue(generator, elements.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
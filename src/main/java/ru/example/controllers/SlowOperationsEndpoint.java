@@ -0,0 +1,38 @@
+package ru.example.controllers;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.example.models.SlowOperation;
+import ru.example.repositories.SlowOperationLog;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint GET "/actuator/slowoperations?limit={limit}" with the slowest recently recorded operations.
+ *
+ * @since 17.10.2026
+ */
+@Component
+@Endpoint(id = "slowoperations")
+public class SlowOperationsEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SlowOperationLog slowOperationLog;
+
+    public SlowOperationsEndpoint(SlowOperationLog slowOperationLog) {
+        this.slowOperationLog = slowOperationLog;
+    }
+
+    /**
+     * Method returns the slowest operations from slow operation log.
+     *
+     * @param limit - max operations count, 20 if absent
+     * @return List<SlowOperation> - operations ordered by duration, the slowest first
+     */
+    @ReadOperation
+    public List<SlowOperation> slowest(@Nullable Integer limit) {
+        return slowOperationLog.findSlowest(limit == null ? DEFAULT_LIMIT : Math.max(0, limit));
+    }
+}
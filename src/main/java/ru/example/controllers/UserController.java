@@ -1,13 +1,32 @@
 package ru.example.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.example.exceptions.ContactNotFoundException;
 import ru.example.exceptions.UserNotFoundException;
+import ru.example.models.BatchResult;
 import ru.example.models.Contact;
+import ru.example.models.ContactChanges;
+import ru.example.models.ContactOperation;
+import ru.example.models.ImportResult;
+import ru.example.models.Page;
+import ru.example.models.PhoneOwner;
 import ru.example.models.User;
+import ru.example.repositories.ContactChangeFeed;
 import ru.example.repositories.UsersRepository;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -19,11 +38,25 @@ import java.util.Map;
  */
 @RestController
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     @Autowired
     private final UsersRepository repository;
+    private final ContactChangeFeed changeFeed;
+    private final ContactChangeStreams changeStreams;
+    private final NdjsonWriter ndjsonWriter;
+    private final BulkImporter bulkImporter;
+    private final DataExporter dataExporter;
 
-    UserController(UsersRepository repository) {
+    UserController(UsersRepository repository, ContactChangeFeed changeFeed, ContactChangeStreams changeStreams,
+                   ObjectMapper objectMapper) {
         this.repository = repository;
+        this.changeFeed = changeFeed;
+        this.changeStreams = changeStreams;
+        this.ndjsonWriter = new NdjsonWriter(objectMapper);
+        this.bulkImporter = new BulkImporter(repository, objectMapper);
+        this.dataExporter = new DataExporter(repository, ndjsonWriter);
     }
 
     /**
@@ -36,6 +69,56 @@ public class UserController {
         return repository.findAll();
     }
 
+    /**
+     * Method for GET "/users?limit={limit}&after={after}".
+     * Method returns users ordered by id using keyset pagination.
+     * Limit is truncated to maximum page size.
+     *
+     * @param limit - max users count on page
+     * @param after - id of the last user from previous page, absent for the first page
+     * @return Page<User> of users and id for next page request
+     */
+    @GetMapping(value = "/users", params = "limit")
+    Page<User> getUsersPage(@RequestParam int limit, @RequestParam(required = false) Long after) {
+        return repository.findPage(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Method for GET "/users" with "Accept: application/x-ndjson".
+     * Method streams all users ordered by id, one JSON user per line.
+     *
+     * @return StreamingResponseBody writing users to response incrementally
+     */
+    @GetMapping(value = "/users", produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    StreamingResponseBody streamAllUsers() {
+        return ndjsonWriter.body(() -> repository.iterateAll(null));
+    }
+
+    /**
+     * Method for GET "/users/export?format={ndjson|csv}&gzip={true|false}".
+     * Method streams the whole dataset for backups and analytics without blocking writers.
+     * NDJSON contains one user with contacts per line, CSV contains one contact per line.
+     *
+     * @param format - "ndjson" (default) or "csv", other formats are rejected with 400
+     * @param gzip   - compress response as gzip file
+     * @return ResponseEntity<StreamingResponseBody> writing dataset to response incrementally
+     */
+    @GetMapping("/users/export")
+    ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                      @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown export format: " + format + ", expected ndjson or csv");
+        }
+        String fileName = "telephone-book." + (csv ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        String contentType = gzip ? "application/gzip" : csv ? Csv.TEXT_CSV_VALUE : NdjsonWriter.APPLICATION_NDJSON_VALUE;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(outputStream -> dataExporter.export(outputStream, csv, gzip));
+    }
+
     /**
      * Method for POST "/users". Method create a new user - telephone book owner.
      * In current realisation method doesn't create users's contact, ony user's info.
@@ -48,6 +131,32 @@ public class UserController {
         return repository.save(newUser);
     }
 
+    /**
+     * Method for POST "/users/import" with NDJSON body: one user JSON per line.
+     * Method creates users with their contacts by batches while body is being received.
+     *
+     * @param body - request body
+     * @return ImportResult - counts of created users and errors of first failed lines
+     * @throws IOException if body cannot be read
+     */
+    @PostMapping(value = "/users/import", consumes = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    ImportResult importUsersNdjson(InputStream body) throws IOException {
+        return bulkImporter.importUsersNdjson(body);
+    }
+
+    /**
+     * Method for POST "/users/import" with CSV body: one user name per line.
+     * Method creates users by batches while body is being received.
+     *
+     * @param body - request body
+     * @return ImportResult - counts of created users and errors of first failed lines
+     * @throws IOException if body cannot be read
+     */
+    @PostMapping(value = "/users/import", consumes = Csv.TEXT_CSV_VALUE)
+    ImportResult importUsersCsv(InputStream body) throws IOException {
+        return bulkImporter.importUsersCsv(body);
+    }
+
     /**
      * Method for DELETE "/users".
      * Method deletes all users.
@@ -61,16 +170,34 @@ public class UserController {
 
     /**
      * Method for GET "/users/{id}".
-     * Method return User by its id.
+     * Method return User by its id with user version as ETag.
+     * If "If-None-Match" has current ETag then 304 Not Modified is returned without body.
      * If user can't be found method throws UserNotFoundException.
      *
      * @param id - user id
-     * @return founded User with id from param
+     * @return ResponseEntity<User> - founded User with id from param
      */
     @GetMapping("/users/{id}")
-    User getUser(@PathVariable Long id) {
-        return repository.findById(id)
+    ResponseEntity<User> getUser(@PathVariable Long id) {
+        User user = repository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
+        return ResponseEntity.ok()
+                .eTag(Long.toString(user.version()))
+                .body(user);
+    }
+
+    /**
+     * Method for POST "/users/batch" with JSON array of user ids.
+     * Method returns found users and ids of users that can't be found.
+     * If there are more ids than maximum batch size then 400 Bad Request is returned.
+     *
+     * @param ids - user ids
+     * @return BatchResult<User> - found users and missing ids in request order
+     */
+    @PostMapping("/users/batch")
+    BatchResult<User> getUsers(@RequestBody List<Long> ids) {
+        checkBatchSize(ids);
+        return repository.findAllById(ids);
     }
 
     /**
@@ -114,14 +241,89 @@ public class UserController {
 
     /**
      * Method for GET "/users/{userId}/contacts".
-     * Method for getting all user's contacts.
+     * Method for getting all user's contacts with user version as ETag.
+     * If "If-None-Match" has current ETag then 304 Not Modified is returned without body.
+     * Version is read before contacts, so contacts are not older than ETag.
      *
      * @param userId - telephone book owner id
-     * @return Map<Long, Contact> of user's contacts
+     * @return ResponseEntity<Map<Long, Contact>> of user's contacts
      */
     @GetMapping("/users/{userId}/contacts")
-    Map<Long, Contact> getAllUserContacts(@PathVariable Long userId) {
-        return repository.findAllUserContacts(userId);
+    ResponseEntity<Map<Long, Contact>> getAllUserContacts(@PathVariable Long userId) {
+        long version = repository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId))
+                .version();
+        return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(repository.findAllUserContacts(userId));
+    }
+
+    /**
+     * Method for GET "/users/{userId}/contacts?limit={limit}&after={after}".
+     * Method returns user's contacts ordered by id using keyset pagination.
+     * Limit is truncated to maximum page size.
+     *
+     * @param userId - telephone book owner id
+     * @param limit  - max contacts count on page
+     * @param after  - id of the last contact from previous page, absent for the first page
+     * @return Page<Contact> of contacts and id for next page request
+     */
+    @GetMapping(value = "/users/{userId}/contacts", params = "limit")
+    Page<Contact> getUserContactsPage(@PathVariable Long userId, @RequestParam int limit,
+                                      @RequestParam(required = false) Long after) {
+        return repository.findUserContactsPage(userId, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Method for GET "/users/{userId}/contacts" with "Accept: application/x-ndjson".
+     * Method streams all user's contacts ordered by id, one JSON contact per line.
+     *
+     * @param userId - telephone book owner id
+     * @return StreamingResponseBody writing contacts to response incrementally
+     */
+    @GetMapping(value = "/users/{userId}/contacts", produces = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    StreamingResponseBody streamAllUserContacts(@PathVariable Long userId) {
+        Iterator<Contact> contacts = repository.iterateUserContacts(userId, null);
+        return ndjsonWriter.body(() -> contacts);
+    }
+
+    /**
+     * Method for GET "/users/{userId}/contacts/changes?since={since}".
+     * Method returns contact changes made after given sequence for incremental sync.
+     * Client starts from ETag of "/users/{userId}/contacts" response and continues from returned last sequence.
+     * If changes after sequence are not kept anymore then resync is required: client must get all contacts again.
+     *
+     * @param userId - telephone book owner id
+     * @param since  - sequence of the last known change
+     * @return ContactChanges - changes in the order they were made or resync signal
+     */
+    @GetMapping("/users/{userId}/contacts/changes")
+    ContactChanges getContactChanges(@PathVariable Long userId, @RequestParam long since) {
+        repository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        return changeFeed.findChanges(userId, since);
+    }
+
+    /**
+     * Method for GET "/users/{userId}/contacts/changes" with "Accept: text/event-stream".
+     * Method streams contact and user info changes as Server-Sent Events while they are made:
+     * "contact" event with contact change, "user" event with new user info, "resync" event when client
+     * must get all contacts again and "deleted" event before stream of deleted user is completed.
+     * Event id is change sequence, so reconnecting client with Last-Event-ID header gets changes it missed.
+     * Stream of client that does not read changes in time is completed, client must reconnect.
+     *
+     * @param userId      - telephone book owner id
+     * @param since       - sequence of the last known change, absent if only new changes are needed
+     * @param lastEventId - id of the last received event, used instead of "since" on reconnect
+     * @param request     - request switched to async mode
+     * @param response    - response the changes are streamed to
+     * @throws IOException if response output cannot be opened
+     */
+    @GetMapping(value = "/users/{userId}/contacts/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    void streamContactChanges(@PathVariable Long userId, @RequestParam(required = false) Long since,
+                              @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        repository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        changeStreams.subscribe(userId, lastEventId != null ? lastEventId : since, request, response);
     }
 
     /**
@@ -137,6 +339,36 @@ public class UserController {
         return repository.addContact(userId, newContact);
     }
 
+    /**
+     * Method for POST "/users/{userId}/contacts/import" with NDJSON body: one contact JSON per line.
+     * Method adds contacts to user's telephone book by batches while body is being received.
+     *
+     * @param userId - telephone book owner id
+     * @param body   - request body
+     * @return ImportResult - counts of added contacts and errors of first failed lines
+     * @throws IOException if body cannot be read
+     */
+    @PostMapping(value = "/users/{userId}/contacts/import", consumes = NdjsonWriter.APPLICATION_NDJSON_VALUE)
+    ImportResult importContactsNdjson(@PathVariable Long userId, InputStream body) throws IOException {
+        repository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        return bulkImporter.importContactsNdjson(userId, body);
+    }
+
+    /**
+     * Method for POST "/users/{userId}/contacts/import" with CSV body: "name,phone" per line.
+     * Method adds contacts to user's telephone book by batches while body is being received.
+     *
+     * @param userId - telephone book owner id
+     * @param body   - request body
+     * @return ImportResult - counts of added contacts and errors of first failed lines
+     * @throws IOException if body cannot be read
+     */
+    @PostMapping(value = "/users/{userId}/contacts/import", consumes = Csv.TEXT_CSV_VALUE)
+    ImportResult importContactsCsv(@PathVariable Long userId, InputStream body) throws IOException {
+        repository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        return bulkImporter.importContactsCsv(userId, body);
+    }
+
     /**
      * Method for DELETE "/users/{userId}/contacts".
      * Delete all user'scontacts.
@@ -151,17 +383,36 @@ public class UserController {
 
     /**
      * Method for GET "/users/{userId}/contacts/{contactId}".
-     * Method return contact by its id.
+     * Method return contact by its id with contact version as ETag.
+     * If "If-None-Match" has current ETag then 304 Not Modified is returned without body.
      * If contact cannot be found method throws ContactNotFoundException.
      *
      * @param userId    - telephone book owner id
      * @param contactId - contact id
-     * @return Contact that was found
+     * @return ResponseEntity<Contact> - Contact that was found
      */
     @GetMapping("/users/{userId}/contacts/{contactId}")
-    Contact getUserContact(@PathVariable Long userId, @PathVariable Long contactId) {
-        return repository.findUserContactByContactId(userId, contactId)
+    ResponseEntity<Contact> getUserContact(@PathVariable Long userId, @PathVariable Long contactId) {
+        Contact contact = repository.findUserContactByContactId(userId, contactId)
                 .orElseThrow(() -> new ContactNotFoundException(contactId));
+        return ResponseEntity.ok()
+                .eTag(Long.toString(contact.version()))
+                .body(contact);
+    }
+
+    /**
+     * Method for POST "/users/{userId}/contacts/batch" with JSON array of contact ids.
+     * Method returns found contacts and ids of contacts that can't be found.
+     * If there are more ids than maximum batch size then 400 Bad Request is returned.
+     *
+     * @param userId     - telephone book owner id
+     * @param contactIds - contact ids
+     * @return BatchResult<Contact> - found contacts and missing ids in request order
+     */
+    @PostMapping("/users/{userId}/contacts/batch")
+    BatchResult<Contact> getUserContacts(@PathVariable Long userId, @RequestBody List<Long> contactIds) {
+        checkBatchSize(contactIds);
+        return repository.findUserContactsByIds(userId, contactIds);
     }
 
     /**
@@ -193,6 +444,27 @@ public class UserController {
         return repository.updateContact(userId, contactId, updatedContact);
     }
 
+    /**
+     * Method for POST "/users/{userId}/contacts/operations" with JSON array of operations:
+     * {"type":"ADD","name":...,"phone":...}, {"type":"UPDATE","contactId":...,"name":...,"phone":...}
+     * or {"type":"DELETE","contactId":...}.
+     * Method applies all operations atomically: if any operation is invalid (400), including name or phone
+     * that can't be stored, or its contact can't be found (404) then nothing is changed.
+     * Batch is not isolated from readers: contacts and search requests running concurrently may return
+     * part of batch. If batch fails after the first change, its changes are undone and change feed gets
+     * both changes and their undo, so clients that saw part of batch converge to restored contacts.
+     * If there are more operations than maximum batch size then 400 Bad Request is returned.
+     *
+     * @param userId     - telephone book owner id
+     * @param operations - operations in order of applying
+     * @return List<Contact> - result contact of every operation, deleted contact for DELETE
+     */
+    @PostMapping("/users/{userId}/contacts/operations")
+    List<Contact> applyContactOperations(@PathVariable Long userId, @RequestBody List<ContactOperation> operations) {
+        checkBatchSize(operations);
+        return repository.applyContactOperations(userId, operations);
+    }
+
     /**
      * Method for POST "/users/{userId}/contacts/search".
      * Method for search contact by phone.
@@ -205,4 +477,23 @@ public class UserController {
     List<Contact> searchContacts(@RequestBody String phone, @PathVariable Long userId) {
         return repository.searchContacts(userId, phone);
     }
+
+    /**
+     * Method for POST "/contacts/lookup".
+     * Method for reverse lookup of phone number across all telephone books.
+     *
+     * @param phone - full phone number, compared by digits only
+     * @return List<PhoneOwner> of users and contacts with this phone or empty list then phone can't be found.
+     */
+    @PostMapping("/contacts/lookup")
+    List<PhoneOwner> lookupPhone(@RequestBody String phone) {
+        return repository.findPhoneOwners(phone);
+    }
+
+    private static void checkBatchSize(List<?> items) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many items: " + items.size() + ", maximum is " + MAX_BATCH_SIZE);
+        }
+    }
 }
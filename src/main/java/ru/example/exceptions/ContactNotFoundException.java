@@ -2,12 +2,13 @@ package ru.example.exceptions;
 
 /**
  * Exception used to indicate when a user was not created
+ * Exception has no stack trace for the same reason as UserNotFoundException.
  *
  * @author uolpakova
  * @since 05.12.2019
  */
 public class ContactNotFoundException extends RuntimeException {
     public ContactNotFoundException(Long id) {
-        super("Could not find contact " + id);
+        super("Could not find contact " + id, null, false, false);
     }
 }
@@ -0,0 +1,22 @@
+package ru.example.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Handler for 400 InvalidContactOperationException
+ *
+ * @since 17.10.2026
+ */
+@ControllerAdvice
+public class InvalidContactOperationAdvice {
+    @ResponseBody
+    @ExceptionHandler(InvalidContactOperationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String invalidContactOperationHandler(InvalidContactOperationException ex) {
+        return ex.getMessage();
+    }
+}
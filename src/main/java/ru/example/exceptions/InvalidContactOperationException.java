@@ -0,0 +1,12 @@
+package ru.example.exceptions;
+
+/**
+ * Exception used to indicate when a batch of contact operations has malformed operation
+ *
+ * @since 17.10.2026
+ */
+public class InvalidContactOperationException extends RuntimeException {
+    public InvalidContactOperationException(int index, String reason) {
+        super("Invalid contact operation " + index + ": " + reason);
+    }
+}
@@ -2,12 +2,14 @@ package ru.example.exceptions;
 
 /**
  * Exception used to indicate when a user is looked up but not found
+ * Not found is a usual response, not an error, so exception has no stack trace:
+ * filling stack trace of deep web request stack costs more than the whole lookup.
  *
  * @author uolpakova
  * @since 05.12.2019
  */
 public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(Long id) {
-        super("Could not find user " + id);
+        super("Could not find user " + id, null, false, false);
     }
 }
@@ -0,0 +1,18 @@
+package ru.example.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class presented result of batch read: found records and requested ids that were not found, both in request order.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class BatchResult<T> {
+    private List<T> found = new ArrayList<>();
+    private List<Long> missing = new ArrayList<>();
+}
@@ -0,0 +1,68 @@
+package ru.example.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for generate unique IDs without contention between threads.
+ * Every thread reserves a block of ids from shared counter and then generates ids from its block
+ * without any atomic operations, so shared counter is changed once per block.
+ * Ids are unique but not ordered by generation time across threads.
+ *
+ * @since 17.10.2026
+ */
+public class BlockIdGenerator {
+    private static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final int blockSize;
+    private final AtomicLong reserved = new AtomicLong(0);
+    private final AtomicLong usedUpTo = new AtomicLong(0);
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    public BlockIdGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdGenerator(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Method generates next id.
+     *
+     * @return long - unique id, greater than 0
+     */
+    public long nextId() {
+        Block block = blocks.get();
+        if (block.next > block.end || block.next <= usedUpTo.get()) {
+            block.end = reserved.addAndGet(blockSize);
+            block.next = block.end - blockSize + 1;
+        }
+        return block.next++;
+    }
+
+    /**
+     * Method returns the largest reserved id, every generated id is not greater than it.
+     *
+     * @return long - the largest reserved id, 0 if no ids were generated
+     */
+    public long lastId() {
+        return reserved.get();
+    }
+
+    /**
+     * Method moves generator forward, so ids up to usedId are never generated again,
+     * including rest of blocks that are already reserved by threads.
+     * Generator is never moved back.
+     *
+     * @param usedId - id that is already used
+     */
+    public void advanceTo(long usedId) {
+        reserved.accumulateAndGet(usedId, Math::max);
+        usedUpTo.accumulateAndGet(usedId, Math::max);
+    }
+
+    private static final class Block {
+        private long next = 1;
+        private long end = 0;
+    }
+}
@@ -1,24 +1,159 @@
 package ru.example.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import ru.example.search.PackedDigits;
+import ru.example.search.PhoneNumbers;
 
 /**
- * Class presented contact in user's telephone book.
+ * Class presented contact snapshot in user's telephone book, snapshots must not be changed by callers.
  * Attention: Class uses lombok data sp getters and setters are generated automatically.
  *
  * @author uolpakova
  * @since 05.12.2019
  */
 @Data
+@JsonPropertyOrder({"id", "name", "phone"})
 public class Contact {
-    private static final AtomicIdCounter ID_COUNTER = new AtomicIdCounter();
+    private static final BlockIdGenerator ID_GENERATOR = new BlockIdGenerator();
+    private static final StringPool NAME_POOL = new StringPool(1 << 16);
     private Long id;
     private String name;
-    private String phone;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long phoneDigits = PackedDigits.NOT_PACKED;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private String phoneText;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final long version;
 
-    public Contact(String name, String phone) {
-        this.id = ID_COUNTER.nextId();
+    /**
+     * Method returns the largest reserved contact id, all generated ids are not greater than it.
+     *
+     * @return long - the largest reserved id
+     */
+    public static long lastId() {
+        return ID_GENERATOR.lastId();
+    }
+
+    /**
+     * Method moves contact id generator forward, used when restoring contacts with already known ids.
+     *
+     * @param usedId - id that is already used
+     */
+    public static void reserveIdsUpTo(long usedId) {
+        ID_GENERATOR.advanceTo(usedId);
+    }
+
+    /**
+     * Method returns pool of contact names.
+     *
+     * @return StringPool - names pool with its statistics
+     */
+    public static StringPool namePool() {
+        return NAME_POOL;
+    }
+
+    /**
+     * Method creates contact with already known id and version, used when contact is read from storage.
+     *
+     * @param id      - contact id
+     * @param name    - contact name
+     * @param phone   - contact phone
+     * @param version - contact snapshot version
+     * @return Contact - contact with this id
+     */
+    public static Contact of(Long id, String name, String phone, long version) {
+        return new Contact(id, NAME_POOL.intern(name), phone, version);
+    }
+
+    /**
+     * Method creates contact with already known id and version without deduplication of its name.
+     * Used for short-lived copies of contacts that are stored elsewhere (e.g. off-heap), so reads
+     * neither replace pooled names nor are counted as saved bytes.
+     *
+     * @param id      - contact id
+     * @param name    - contact name
+     * @param phone   - contact phone
+     * @param version - contact snapshot version
+     * @return Contact - contact with this id
+     */
+    public static Contact copyOf(Long id, String name, String phone, long version) {
+        return new Contact(id, name, phone, version);
+    }
+
+    @JsonCreator
+    public Contact(@JsonProperty("name") String name, @JsonProperty("phone") String phone) {
+        this(ID_GENERATOR.nextId(), NAME_POOL.intern(name), phone, VersionClock.next());
+    }
+
+    private Contact(Long id, String name, String phone, long version) {
+        this.id = id;
         this.name = name;
-        this.phone = phone;
+        this.version = version;
+        setPhone(phone);
+    }
+
+    /**
+     * Method returns version of this snapshot, new snapshot of contact always has greater version.
+     *
+     * @return long - contact version
+     */
+    public long version() {
+        return version;
+    }
+
+    @ToString.Include(name = "phone")
+    public String getPhone() {
+        if (phoneText != null || phoneDigits == PackedDigits.NOT_PACKED) {
+            return phoneText;
+        }
+        return PackedDigits.unpack(phoneDigits);
+    }
+
+    public void setPhone(String phone) {
+        phoneDigits = PackedDigits.pack(phone);
+        boolean onlyDigits = phoneDigits != PackedDigits.NOT_PACKED && PackedDigits.length(phoneDigits) == phone.length();
+        phoneText = onlyDigits ? null : phone;
+    }
+
+    /**
+     * Method checks that phone digits contain query digits, formatting of phone is ignored.
+     * Packed phones are compared without allocation.
+     *
+     * @param digits       - query digits
+     * @param packedDigits - the same query digits packed by PackedDigits.pack
+     * @return true if query digits are substring of phone digits
+     */
+    public boolean phoneContainsDigits(String digits, long packedDigits) {
+        if (phoneDigits != PackedDigits.NOT_PACKED) {
+            return packedDigits != PackedDigits.NOT_PACKED && PackedDigits.contains(phoneDigits, packedDigits);
+        }
+        return phoneText != null && PhoneNumbers.digits(phoneText).contains(digits);
+    }
+
+    /**
+     * Method creates new snapshot of this contact with the same id and new contact info.
+     *
+     * @param contact - contact with new contact info
+     * @return Contact - new contact snapshot
+     */
+    public Contact withInfo(Contact contact) {
+        return new Contact(id, NAME_POOL.intern(contact.getName()), contact.getPhone(), VersionClock.next());
     }
 }
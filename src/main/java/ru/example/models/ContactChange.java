@@ -0,0 +1,16 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented one change of contact in batch: old contact is null for added contact,
+ * new contact is null for deleted contact.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ContactChange {
+    private final Contact oldContact;
+    private final Contact newContact;
+}
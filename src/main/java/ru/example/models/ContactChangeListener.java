@@ -0,0 +1,21 @@
+package ru.example.models;
+
+/**
+ * Listener for contacts changes in user's telephone book.
+ * It is called under contact lock, so changes of one contact are delivered in order.
+ *
+ * @since 17.10.2026
+ */
+@FunctionalInterface
+public interface ContactChangeListener {
+    ContactChangeListener NONE = (oldContact, newContact) -> {
+    };
+
+    /**
+     * Method is called after contact change.
+     *
+     * @param oldContact - contact before change, null for added contact
+     * @param newContact - contact after change, null for deleted contact
+     */
+    void contactChanged(Contact oldContact, Contact newContact);
+}
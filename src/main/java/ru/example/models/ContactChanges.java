@@ -0,0 +1,21 @@
+package ru.example.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class presented changes of telephone book after given sequence in the order they were made.
+ * Last sequence is the sequence for the next request. If resync is required then changes are not known,
+ * client must get all contacts again and continue from their ETag.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ContactChanges {
+    private List<ContactFeedEntry> changes = new ArrayList<>();
+    private long lastSequence;
+    private boolean resyncRequired;
+}
@@ -0,0 +1,16 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented one change of telephone book in change feed: contact after change or null if contact was deleted.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ContactFeedEntry {
+    private final long sequence;
+    private final Long contactId;
+    private final Contact contact;
+}
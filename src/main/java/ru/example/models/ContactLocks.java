@@ -0,0 +1,27 @@
+package ru.example.models;
+
+/**
+ * Striped locks for contacts changes.
+ * Contact ids are unique for all users, so one lock stripes array is shared by all telephone books.
+ *
+ * @since 17.10.2026
+ */
+final class ContactLocks {
+    private static final int STRIPES = 1024;
+    private static final Object[] LOCKS = new Object[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private ContactLocks() {
+    }
+
+    static Object of(Long contactId) {
+        int hash = contactId.hashCode();
+        hash ^= hash >>> 16;
+        return LOCKS[hash & (STRIPES - 1)];
+    }
+}
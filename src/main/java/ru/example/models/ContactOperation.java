@@ -0,0 +1,22 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented one operation of contacts batch: ADD with name and phone, UPDATE with contact id, name and phone
+ * or DELETE with contact id.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ContactOperation {
+    private Type type;
+    private Long contactId;
+    private String name;
+    private String phone;
+
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+}
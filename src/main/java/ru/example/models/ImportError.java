@@ -0,0 +1,15 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented error of one record in bulk import.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ImportError {
+    private final long line;
+    private final String message;
+}
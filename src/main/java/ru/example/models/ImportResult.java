@@ -0,0 +1,22 @@
+package ru.example.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class presented result of bulk import: counts of received, imported and failed records
+ * and errors of first failed records, so result size does not depend on body size.
+ * Only first errors are reported, but all failed records are counted.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class ImportResult {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<ImportError> errors = new ArrayList<>();
+}
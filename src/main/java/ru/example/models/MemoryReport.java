@@ -0,0 +1,24 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented memory usage of telephone books and savings of contact names deduplication.
+ * Off-heap fields are 0 when contacts are stored on heap.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class MemoryReport {
+    private long heapUsedBytes;
+    private long heapMaxBytes;
+    private String contactStorage;
+    private long offHeapAllocatedBytes;
+    private long offHeapGarbageBytes;
+    private long offHeapContacts;
+    private int namePoolCapacity;
+    private long namePoolLookups;
+    private long namePoolHits;
+    private long namePoolSavedBytes;
+}
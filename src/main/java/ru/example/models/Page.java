@@ -0,0 +1,38 @@
+package ru.example.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Class presented one page of keyset pagination.
+ * Next page must be requested with "after" equal to nextAfter, nextAfter is null for the last page.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class Page<T> {
+    private final List<T> items;
+    private final Long nextAfter;
+
+    /**
+     * Method reads next page from ordered iterator.
+     *
+     * @param iterator - iterator over elements ordered by id, positioned after previous page
+     * @param limit    - max elements count on page
+     * @param idGetter - function to get element id
+     * @return Page<T> - page with at most limit elements
+     */
+    public static <T> Page<T> of(Iterator<T> iterator, int limit, Function<T, Long> idGetter) {
+        List<T> items = new ArrayList<>(limit);
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        Long nextAfter = iterator.hasNext() ? idGetter.apply(items.get(items.size() - 1)) : null;
+        return new Page<>(items, nextAfter);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented place where phone number is stored: telephone book owner and contact in it.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class PhoneOwner {
+    private final Long userId;
+    private final Long contactId;
+}
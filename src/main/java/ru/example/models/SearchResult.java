@@ -0,0 +1,17 @@
+package ru.example.models;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Class presented search result with count of candidates that were checked to find it.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class SearchResult<T> {
+    private final List<T> items;
+    private final int candidates;
+}
@@ -0,0 +1,20 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented one slow repository operation recorded by slow operation log.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class SlowOperation {
+    private final long timestamp;
+    private final String operation;
+    private final String query;
+    private final Long userId;
+    private final int candidates;
+    private final int results;
+    private final long elapsedMicros;
+}
@@ -0,0 +1,77 @@
+package ru.example.models;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool for deduplication of repeating strings.
+ * Pool is a direct-mapped table: string hash chooses one slot, equal string in slot is returned instead of argument,
+ * other string in slot is replaced, so rare strings are evicted by frequent ones and pool never grows.
+ * Pool has no weak references or LRU order: eviction is overwrite on slot collision, which keeps pool lock-free
+ * and free of allocation, but two frequent strings sharing a slot evict each other.
+ * Saved bytes are estimated by size of deduplicated strings (object header, fields and char array).
+ *
+ * @since 17.10.2026
+ */
+public class StringPool {
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Method returns pooled string equal to value.
+     *
+     * @param value - string to deduplicate, may be null
+     * @return String - equal string from pool or value itself
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups.increment();
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String pooled = slots.get(slot);
+        if (value.equals(pooled)) {
+            if (pooled != value) {
+                hits.increment();
+                savedBytes.add(STRING_OVERHEAD_BYTES + 2L * value.length());
+            }
+            return pooled;
+        }
+        slots.set(slot, value);
+        return value;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Method returns estimated bytes of strings that were replaced by pooled ones.
+     * Bytes are counted when string is deduplicated, so they may include strings that are already collected.
+     *
+     * @return long - estimated saved bytes
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+}
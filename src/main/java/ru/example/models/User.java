@@ -1,60 +1,513 @@
 package ru.example.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import ru.example.exceptions.ContactNotFoundException;
+import ru.example.exceptions.InvalidContactOperationException;
+import ru.example.search.PackedDigits;
+import ru.example.search.PhoneNumbers;
+import ru.example.search.PhoneTrigramIndex;
+import ru.example.storage.ContactStorage;
+import ru.example.storage.HeapContactStorage;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
- * Class presented User - telephone book owner
+ * Class presented User - telephone book owner, contacts must be changed only via its methods.
  * Attention: Class uses lombok data sp getters and setters are generated automatically.
  *
  * @author uolpakova
  * @since 05.12.2019
  */
 @Data
+@JsonPropertyOrder({"id", "name", "contacts"})
 public class User {
-    private static final AtomicIdCounter ID_COUNTER = new AtomicIdCounter();
+    private static final BlockIdGenerator ID_GENERATOR = new BlockIdGenerator();
+    static final int PHONE_INDEX_THRESHOLD = 128;
     private Long id;
     private String name;
-    private Map<Long, Contact> contacts;
+    private static volatile Supplier<ContactStorage> contactStorageFactory = HeapContactStorage::new;
+    private ContactStorage contacts;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile PhoneTrigramIndex phoneIndex;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AtomicInteger contactsCount = new AtomicInteger();
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final AtomicLong version = new AtomicLong(VersionClock.next());
+
+    /**
+     * Method returns the largest reserved user id, all generated ids are not greater than it.
+     *
+     * @return long - the largest reserved id
+     */
+    public static long lastId() {
+        return ID_GENERATOR.lastId();
+    }
+
+    /**
+     * Method moves user id generator forward, used when restoring users with already known ids.
+     *
+     * @param usedId - id that is already used
+     */
+    public static void reserveIdsUpTo(long usedId) {
+        ID_GENERATOR.advanceTo(usedId);
+    }
+
+    /**
+     * Method sets storage type for contacts of users created after this call.
+     *
+     * @param factory - creates empty contact storage for one user
+     */
+    public static void useContactStorage(Supplier<ContactStorage> factory) {
+        contactStorageFactory = factory;
+    }
+
+    /**
+     * Method creates user with already known id and contacts, used when users are restored from disk.
+     * Contacts are put directly: no id is taken from generator and version is changed once.
+     *
+     * @param id       - user id
+     * @param name     - user name
+     * @param contacts - contacts with their ids and versions
+     * @return User - user with this id
+     */
+    public static User of(Long id, String name, Collection<Contact> contacts) {
+        return new User(id, name, contacts);
+    }
 
     public User(String name) {
-        this(name, new HashMap<>());
+        this(name, Collections.emptyMap());
     }
 
-    public User(String name, Map<Long, Contact> contacts) {
-        this.id = ID_COUNTER.nextId();
+    @JsonCreator
+    public User(@JsonProperty("name") String name, @JsonProperty("contacts") Map<Long, Contact> contacts) {
+        this.id = ID_GENERATOR.nextId();
         this.name = name;
-        this.contacts = contacts;
+        setContacts(contacts);
+    }
+
+    private User(Long id, String name, Collection<Contact> restoredContacts) {
+        this.id = id;
+        this.name = name;
+        this.contacts = contactStorageFactory.get();
+        restoredContacts.forEach(this::putContact);
+        indexPhonesIfLargeLocked();
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        changed();
+    }
+
+    public Map<Long, Contact> getContacts() {
+        return contacts.asMap();
+    }
+
+    public void setContacts(Map<Long, Contact> contacts) {
+        this.contacts = contactStorageFactory.get();
+        contactsCount.set(0);
+        phoneIndex = null;
+        if (contacts != null) {
+            contacts.values().forEach(this::addContact);
+        }
+        changed();
     }
 
     public void deleteContactById(Long contactId) {
-        contacts.remove(contactId);
+        deleteContactById(contactId, ContactChangeListener.NONE);
+    }
+
+    /**
+     * Method deletes contact by id under contact lock.
+     *
+     * @param contactId - id for contact that must be deleted
+     * @param listener  - listener called under contact lock if contact was deleted
+     * @return Optional<Contact> - deleted contact
+     */
+    public Optional<Contact> deleteContactById(Long contactId, ContactChangeListener listener) {
+        StampedLock userLock = UserLocks.of(id);
+        long stamp = userLock.readLock();
+        try {
+            synchronized (ContactLocks.of(contactId)) {
+                Contact deletedContact = removeContact(contactId);
+                if (deletedContact != null) {
+                    changed();
+                    listener.contactChanged(deletedContact, null);
+                }
+                return Optional.ofNullable(deletedContact);
+            }
+        } finally {
+            userLock.unlockRead(stamp);
+        }
     }
 
     public void deleteAllContacts() {
-        contacts.clear();
+        deleteAllContacts(ContactChangeListener.NONE);
+    }
+
+    /**
+     * Method deletes all contacts one by one, every contact under its own lock.
+     * Contacts added concurrently with this method may stay in telephone book.
+     *
+     * @param listener - listener called for every deleted contact
+     */
+    public void deleteAllContacts(ContactChangeListener listener) {
+        for (Long contactId : contacts.asMap().keySet()) {
+            deleteContactById(contactId, listener);
+        }
     }
 
     public Contact addContact(Contact contact) {
-        contacts.put(contact.getId(), contact);
-        return contacts.get(contact.getId());
+        return addContact(contact, ContactChangeListener.NONE);
+    }
+
+    /**
+     * Method adds contact under contact lock.
+     * Contact with the same id is replaced.
+     * Added contact is owned by user since that moment and must not be changed by caller.
+     *
+     * @param contact  - contact to add
+     * @param listener - listener called under contact lock
+     * @return Contact - added contact
+     */
+    public Contact addContact(Contact contact, ContactChangeListener listener) {
+        StampedLock userLock = UserLocks.of(id);
+        long stamp = userLock.readLock();
+        try {
+            synchronized (ContactLocks.of(contact.getId())) {
+                Contact previousContact = putContact(contact);
+                changed();
+                listener.contactChanged(previousContact, contact);
+            }
+        } finally {
+            userLock.unlockRead(stamp);
+        }
+        indexPhonesIfLarge();
+        return contact;
     }
 
     public Contact updateContact(Long contactId, Contact contact) {
-        Contact currentContact = contacts.get(contactId);
-        if (currentContact == null) {
-            throw new ContactNotFoundException(contactId);
+        return updateContact(contactId, contact, ContactChangeListener.NONE);
+    }
+
+    /**
+     * Method updates contact info under contact lock.
+     * Current contact is not changed, it is replaced by new snapshot, so readers never see torn name and phone.
+     * If contact cannot be found then ContactNotFoundException throws.
+     *
+     * @param contactId - id for contact that must be updated
+     * @param contact   - new contact info
+     * @param listener  - listener called under contact lock
+     * @return Contact - updated contact snapshot
+     */
+    public Contact updateContact(Long contactId, Contact contact, ContactChangeListener listener) {
+        StampedLock userLock = UserLocks.of(id);
+        long stamp = userLock.readLock();
+        try {
+            synchronized (ContactLocks.of(contactId)) {
+                Contact currentContact = contacts.get(contactId);
+                if (currentContact == null) {
+                    throw new ContactNotFoundException(contactId);
+                }
+                Contact updatedContact = currentContact.withInfo(contact);
+                putContact(updatedContact);
+                changed();
+                listener.contactChanged(currentContact, updatedContact);
+                return updatedContact;
+            }
+        } finally {
+            userLock.unlockRead(stamp);
         }
-        currentContact.setName(contact.getName());
-        currentContact.setPhone(contact.getPhone());
-        return currentContact;
+    }
+
+    /**
+     * Method applies batch of contact operations under write lock of telephone book.
+     * All operations are checked before the first change, including that their contact info can be stored.
+     * If applying fails anyway, already applied operations are undone before exception is thrown,
+     * so either all of them are applied or none, version is changed once for the whole batch.
+     * Readers do not take locks, so they may see part of batch while it is being applied or undone;
+     * that is why undone batch is passed to listener too: as applied changes followed by their undo.
+     * If operation is malformed then InvalidContactOperationException throws,
+     * if contact of UPDATE or DELETE cannot be found then ContactNotFoundException throws.
+     *
+     * @param operations - operations in order of applying
+     * @param listener   - listener called once with all changes under write lock
+     * @return List<Contact> - added or updated contact snapshot for ADD and UPDATE, deleted contact for DELETE
+     */
+    public List<Contact> applyContactOperations(List<ContactOperation> operations,
+                                                Consumer<List<ContactChange>> listener) {
+        StampedLock userLock = UserLocks.of(id);
+        long stamp = userLock.writeLock();
+        try {
+            checkContactOperations(operations);
+            List<Contact> results = new ArrayList<>(operations.size());
+            List<ContactChange> changes = new ArrayList<>(operations.size());
+            try {
+                for (ContactOperation operation : operations) {
+                    Contact oldContact;
+                    Contact newContact;
+                    switch (operation.getType()) {
+                        case ADD:
+                            oldContact = null;
+                            newContact = new Contact(operation.getName(), operation.getPhone());
+                            putContact(newContact);
+                            break;
+                        case UPDATE:
+                            oldContact = contacts.get(operation.getContactId());
+                            newContact = oldContact.withInfo(new Contact(operation.getName(), operation.getPhone()));
+                            putContact(newContact);
+                            break;
+                        default:
+                            oldContact = removeContact(operation.getContactId());
+                            newContact = null;
+                    }
+                    changes.add(new ContactChange(oldContact, newContact));
+                    results.add(newContact != null ? newContact : oldContact);
+                }
+            } catch (RuntimeException e) {
+                undoContactChanges(changes, listener);
+                throw e;
+            }
+            if (!changes.isEmpty()) {
+                changed();
+                listener.accept(changes);
+            }
+            indexPhonesIfLargeLocked();
+            return results;
+        } finally {
+            userLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method returns contacts count without traversing contacts map.
+     *
+     * @return int - contacts count
+     */
+    public int contactsCount() {
+        return contactsCount.get();
+    }
+
+    /**
+     * Method returns version of user info and contacts.
+     *
+     * @return long - user version
+     */
+    public long version() {
+        return version.get();
     }
 
     public Optional<Contact> getContactById(Long contactId) {
         return Optional.ofNullable(contacts.get(contactId));
     }
+
+    /**
+     * Method for iterate contacts ordered by id.
+     * Iterator is weakly consistent: it reflects some of modifications made after its creation.
+     *
+     * @param afterId - iteration starts after contact with this id, null to start from the first contact
+     * @return Iterator<Contact> - contacts iterator
+     */
+    public Iterator<Contact> iterateContacts(Long afterId) {
+        return contacts.iterator(afterId);
+    }
+
+    /**
+     * Method search contacts by substring of phone number.
+     * Phone number queries are compared by digits only using phone index if query has at least 3 digits,
+     * other queries are compared ignoring case with every contact phone.
+     *
+     * @param phone - part of phone number
+     * @return List<Contact> - founded contacts
+     */
+    public List<Contact> searchContactsByPhone(String phone) {
+        return searchContacts(phone).getItems();
+    }
+
+    /**
+     * Method search contacts by substring of phone number like searchContactsByPhone
+     * and also returns how many contacts were checked.
+     *
+     * @param phone - part of phone number
+     * @return SearchResult<Contact> - founded contacts and checked candidates count
+     */
+    public SearchResult<Contact> searchContacts(String phone) {
+        if (!PhoneNumbers.isDigitQuery(phone)) {
+            String query = phone.toUpperCase();
+            List<Contact> foundContacts = contacts.asMap()
+                    .values()
+                    .stream()
+                    .filter(it -> it.getPhone() != null && it.getPhone().toUpperCase().contains(query))
+                    .collect(Collectors.toList());
+            return new SearchResult<>(foundContacts, contactsCount());
+        }
+        String digits = PhoneNumbers.digits(phone);
+        long packedDigits = PackedDigits.pack(digits);
+        PhoneTrigramIndex currentIndex = phoneIndex;
+        if (currentIndex == null || digits.length() < PhoneTrigramIndex.GRAM_LENGTH) {
+            List<Contact> foundContacts = contacts.asMap()
+                    .values()
+                    .stream()
+                    .filter(it -> it.phoneContainsDigits(digits, packedDigits))
+                    .collect(Collectors.toList());
+            return new SearchResult<>(foundContacts, contactsCount());
+        }
+        long[] candidates = currentIndex.candidates(digits);
+        List<Contact> foundContacts = Arrays.stream(candidates)
+                .mapToObj(contacts::get)
+                .filter(it -> it != null && it.phoneContainsDigits(digits, packedDigits))
+                .collect(Collectors.toList());
+        return new SearchResult<>(foundContacts, candidates.length);
+    }
+
+    /**
+     * Method checks that all operations are well-formed, their contact info can be stored
+     * and all changed contacts exist at the moment they are changed:
+     * contact deleted by previous operation of batch does not exist.
+     */
+    private void checkContactOperations(List<ContactOperation> operations) {
+        Set<Long> deletedIds = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            ContactOperation operation = operations.get(i);
+            if (operation == null || operation.getType() == null) {
+                throw new InvalidContactOperationException(i, "type is required");
+            }
+            if (operation.getType() != ContactOperation.Type.DELETE) {
+                try {
+                    contacts.checkContactInfo(operation.getName(), operation.getPhone());
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidContactOperationException(i, e.getMessage());
+                }
+            }
+            if (operation.getType() == ContactOperation.Type.ADD) {
+                continue;
+            }
+            Long contactId = operation.getContactId();
+            if (contactId == null) {
+                throw new InvalidContactOperationException(i, "contactId is required");
+            }
+            if (deletedIds.contains(contactId) || contacts.get(contactId) == null) {
+                throw new ContactNotFoundException(contactId);
+            }
+            if (operation.getType() == ContactOperation.Type.DELETE) {
+                deletedIds.add(contactId);
+            }
+        }
+    }
+
+    /**
+     * Method restores contacts changed by failed batch in reverse order.
+     * Version is changed, so data read during batch is not taken for data of restored version.
+     */
+    private void undoContactChanges(List<ContactChange> changes, Consumer<List<ContactChange>> listener) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<ContactChange> appliedAndUndone = new ArrayList<>(changes.size() * 2);
+        appliedAndUndone.addAll(changes);
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            ContactChange change = changes.get(i);
+            Contact restoredContact = change.getOldContact();
+            if (restoredContact != null) {
+                putContact(restoredContact);
+            } else {
+                removeContact(change.getNewContact().getId());
+            }
+            appliedAndUndone.add(new ContactChange(change.getNewContact(), restoredContact));
+        }
+        changed();
+        listener.accept(appliedAndUndone);
+    }
+
+    /**
+     * Method builds phone index when telephone book became large enough.
+     * Index is built under write lock, so no contact is changed until index is published,
+     * and every change made after that updates index.
+     */
+    private void indexPhonesIfLarge() {
+        if (phoneIndex != null || contactsCount() < PHONE_INDEX_THRESHOLD) {
+            return;
+        }
+        StampedLock userLock = UserLocks.of(id);
+        long stamp = userLock.writeLock();
+        try {
+            indexPhonesIfLargeLocked();
+        } finally {
+            userLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method builds phone index like indexPhonesIfLarge, caller holds write lock.
+     */
+    private void indexPhonesIfLargeLocked() {
+        if (phoneIndex == null && contactsCount() >= PHONE_INDEX_THRESHOLD) {
+            PhoneTrigramIndex newIndex = new PhoneTrigramIndex();
+            contacts.asMap().values().forEach(it -> newIndex.add(it.getId(), it.getPhone()));
+            phoneIndex = newIndex;
+        }
+    }
+
+    private Contact putContact(Contact contact) {
+        Long contactId = contact.getId();
+        Contact previousContact = contacts.put(contact);
+        PhoneTrigramIndex currentIndex = phoneIndex;
+        if (previousContact != null) {
+            if (currentIndex != null) {
+                currentIndex.update(contactId, previousContact.getPhone(), contact.getPhone());
+            }
+        } else {
+            contactsCount.incrementAndGet();
+            if (currentIndex != null) {
+                currentIndex.add(contactId, contact.getPhone());
+            }
+        }
+        return previousContact;
+    }
+
+    private Contact removeContact(Long contactId) {
+        Contact deletedContact = contacts.remove(contactId);
+        if (deletedContact != null) {
+            contactsCount.decrementAndGet();
+            PhoneTrigramIndex currentIndex = phoneIndex;
+            if (currentIndex != null) {
+                currentIndex.remove(contactId, deletedContact.getPhone());
+            }
+        }
+        return deletedContact;
+    }
+
+    /**
+     * Concurrent changes of different contacts may take versions in one order and set them in another,
+     * so version is only increased.
+     */
+    private void changed() {
+        version.accumulateAndGet(VersionClock.next(), Math::max);
+    }
 }
@@ -0,0 +1,16 @@
+package ru.example.models;
+
+import lombok.Data;
+
+/**
+ * Class presented change of user info (without contacts) delivered to subscribers of telephone book changes.
+ * Attention: Class uses lombok data sp getters and setters are generated automatically.
+ *
+ * @since 17.10.2026
+ */
+@Data
+public class UserInfoChange {
+    private final long sequence;
+    private final Long userId;
+    private final String name;
+}
@@ -0,0 +1,33 @@
+package ru.example.models;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Striped locks for telephone books.
+ * Single contact changes share read lock of telephone book and are serialized by contact locks,
+ * batch of contact changes takes write lock, so no other change of the same book runs concurrently with it.
+ * StampedLock takes read lock by one CAS without per-thread hold counts of ReentrantReadWriteLock,
+ * so every single change pays less for excluding batches. Locks are not reentrant: thread that holds
+ * lock of telephone book must not change contacts of any other telephone book.
+ *
+ * @since 17.10.2026
+ */
+final class UserLocks {
+    private static final int STRIPES = 256;
+    private static final StampedLock[] LOCKS = new StampedLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new StampedLock();
+        }
+    }
+
+    private UserLocks() {
+    }
+
+    static StampedLock of(Long userId) {
+        int hash = userId.hashCode();
+        hash ^= hash >>> 16;
+        return LOCKS[hash & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,37 @@
+package ru.example.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of version stamps of users and contacts.
+ * Versions of all entities are taken from one counter, so versions are unique and always grow.
+ * Counter starts from current time in microseconds, so versions issued after restart are greater
+ * than versions that clients received before restart.
+ *
+ * @since 17.10.2026
+ */
+public final class VersionClock {
+    private static final AtomicLong LAST_VERSION = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private VersionClock() {
+    }
+
+    /**
+     * Method returns new version.
+     *
+     * @return long - version greater than all previous ones
+     */
+    public static long next() {
+        return LAST_VERSION.incrementAndGet();
+    }
+
+    /**
+     * Method reserves block of new versions by one counter update, used when many entities are restored at once.
+     *
+     * @param count - versions count
+     * @return long - the first version of block, block versions are greater than all previous ones
+     */
+    public static long reserve(int count) {
+        return LAST_VERSION.getAndAdd(count) + 1;
+    }
+}
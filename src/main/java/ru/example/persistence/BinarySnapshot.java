@@ -0,0 +1,167 @@
+package ru.example.persistence;
+
+import ru.example.models.Contact;
+import ru.example.models.User;
+import ru.example.models.VersionClock;
+import ru.example.repositories.UsersRepository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compact binary snapshot of all users with contacts.
+ * Format (big-endian): header [int magic][int version][long last user id][long last contact id][long users count],
+ * then for every user [long id][string name][int contacts count] followed by contacts [long id][string name][string phone].
+ * String is [int UTF-8 bytes length or -1 for null][UTF-8 bytes].
+ * Snapshot is loaded from memory-mapped file, so only resulting users and contacts are allocated.
+ *
+ * @since 17.10.2026
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x54424B53;
+    private static final int VERSION = 1;
+    private static final int USERS_COUNT_OFFSET = 24;
+    private static final int HEADER_SIZE = 32;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Method writes snapshot of users with current id counters.
+     *
+     * @param users - users to write, may be weakly consistent iterator
+     * @param path  - snapshot file, it is overwritten
+     * @return long - written users count
+     * @throws IOException if snapshot cannot be written
+     */
+    public static long write(Iterator<User> users, Path path) throws IOException {
+        long usersCount = 0;
+        try (FileOutputStream file = new FileOutputStream(path.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(User.lastId());
+            out.writeLong(Contact.lastId());
+            out.writeLong(0);
+            while (users.hasNext()) {
+                User user = users.next();
+                List<Contact> contacts = new ArrayList<>(user.getContacts().values());
+                out.writeLong(user.getId());
+                WalRecords.writeString(out, user.getName());
+                out.writeInt(contacts.size());
+                for (Contact contact : contacts) {
+                    out.writeLong(contact.getId());
+                    WalRecords.writeString(out, contact.getName());
+                    WalRecords.writeString(out, contact.getPhone());
+                }
+                usersCount++;
+            }
+            out.flush();
+            ByteBuffer count = ByteBuffer.allocate(Long.BYTES).putLong(0, usersCount);
+            file.getChannel().write(count, USERS_COUNT_OFFSET);
+            file.getFD().sync();
+        }
+        return usersCount;
+    }
+
+    /**
+     * Method loads snapshot to repository and moves id counters past all restored ids.
+     *
+     * @param path       - snapshot file
+     * @param repository - repository to fill
+     * @return long - loaded users count
+     * @throws IOException if snapshot cannot be read or is malformed
+     */
+    public static long load(Path path, UsersRepository repository) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a telephone book snapshot " + path);
+            }
+            User.reserveIdsUpTo(in.readLong());
+            Contact.reserveIdsUpTo(in.readLong());
+            long usersCount = in.readLong();
+            for (long i = 0; i < usersCount; i++) {
+                long userId = in.readLong();
+                String name = in.readString();
+                int contactsCount = in.readInt();
+                long version = VersionClock.reserve(contactsCount);
+                List<Contact> contacts = new ArrayList<>(contactsCount);
+                for (int j = 0; j < contactsCount; j++) {
+                    contacts.add(Contact.of(in.readLong(), in.readString(), in.readString(), version + j));
+                }
+                repository.save(User.of(userId, name, contacts));
+            }
+            return usersCount;
+        }
+    }
+
+    /**
+     * Sequential reader over memory-mapped file. File is mapped by windows, so it may be larger than 2 GB.
+     */
+    private static final class MappedInput {
+        private static final long WINDOW_SIZE = 1L << 28;
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowPosition;
+        private byte[] stringBytes = new byte[256];
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new EOFException("Snapshot is truncated");
+            }
+            map(0);
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            ensure(length);
+            if (stringBytes.length < length) {
+                stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+            }
+            window.get(stringBytes, 0, length);
+            return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowPosition + window.position();
+            if (position + bytes > size) {
+                throw new EOFException("Snapshot is truncated");
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            windowPosition = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.example.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.example.models.Contact;
+import ru.example.models.ContactChange;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+import ru.example.repositories.UsersRepositoryListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistence for UsersRepository: write-ahead log of every change and periodic binary snapshots.
+ * At startup the latest snapshot is loaded and log segments written after it are replayed,
+ * id counters of users and contacts are restored too.
+ * Snapshot is taken without stopping writers: log is rotated first, so replaying of newer segments
+ * on top of the snapshot always gives the latest state.
+ * Changes are applied to memory first and their records are appended by listener methods under locks
+ * of changed data, so log keeps changes in the order they were made. Nothing waits for disk under locks:
+ * afterChange waits for fsync of records of the change in sync mode, and in async mode it waits until
+ * records not written yet fit to "max-pending-bytes", so fast writers can't fill memory with log records.
+ * Deletion of all users is exclusive against other changes in UsersRepository, so its record
+ * is in the same place of log as in memory.
+ * Failure ordering: failed log rejects every change in beforeChange, before memory is changed.
+ * Change made while log is failing stays in memory, but caller gets error and the change is lost
+ * after restart, as in async mode; caller must treat such change as not done.
+ *
+ * @since 17.10.2026
+ */
+@Component
+@ConditionalOnProperty(name = "telephonebook.persistence.enabled", havingValue = "true")
+@Slf4j
+public class UsersPersistence implements UsersRepositoryListener {
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final UsersRepository repository;
+    private final Path directory;
+    private final boolean sync;
+    private final long snapshotIntervalSeconds;
+    private final long maxPendingBytes;
+    /**
+     * The last sequence appended by current thread during its change.
+     */
+    private final ThreadLocal<long[]> changeSequence = ThreadLocal.withInitial(() -> new long[1]);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "users-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private WriteAheadLog writeAheadLog;
+
+    public UsersPersistence(UsersRepository repository,
+                            @Value("${telephonebook.persistence.directory:data}") String directory,
+                            @Value("${telephonebook.persistence.sync:true}") boolean sync,
+                            @Value("${telephonebook.persistence.snapshot-interval-seconds:600}") long snapshotIntervalSeconds,
+                            @Value("${telephonebook.persistence.max-pending-bytes:67108864}") long maxPendingBytes) {
+        this.repository = repository;
+        this.directory = Paths.get(directory);
+        this.sync = sync;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long lastSegment = recover();
+        writeAheadLog = new WriteAheadLog(directory, lastSegment + 1, maxPendingBytes);
+        repository.addListener(this);
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdownNow();
+        repository.removeListener(this);
+        writeAheadLog.close();
+    }
+
+    /**
+     * Method writes snapshot of the whole repository and deletes log segments and snapshots covered by it.
+     *
+     * @throws IOException if snapshot cannot be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long segment = writeAheadLog.rotate();
+        Path snapshotPath = snapshotPath(segment);
+        Path temporaryPath = directory.resolve(snapshotPath.getFileName() + ".tmp");
+        long usersCount = BinarySnapshot.write(repository.iterateAll(null), temporaryPath);
+        Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        for (Long oldSegment : WriteAheadLog.segments(directory)) {
+            if (oldSegment < segment) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(directory, oldSegment));
+            }
+        }
+        for (Long oldSnapshot : snapshots()) {
+            if (oldSnapshot < segment) {
+                Files.deleteIfExists(snapshotPath(oldSnapshot));
+            }
+        }
+        log.info("Snapshot " + snapshotPath + " with " + usersCount + " users was written");
+    }
+
+    @Override
+    public void beforeChange() {
+        writeAheadLog.checkWritable();
+    }
+
+    @Override
+    public void afterChange() {
+        long[] sequence = changeSequence.get();
+        if (sequence[0] == 0) {
+            return;
+        }
+        long lastSequence = sequence[0];
+        sequence[0] = 0;
+        if (sync) {
+            writeAheadLog.awaitDurable(lastSequence);
+        } else {
+            writeAheadLog.awaitCapacity();
+        }
+    }
+
+    @Override
+    public void userSaved(User user) {
+        log(WalRecords.saveUser(user));
+    }
+
+    @Override
+    public void userInfoUpdated(User user) {
+        log(WalRecords.updateUser(user));
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        log(WalRecords.deleteUser(user.getId()));
+    }
+
+    @Override
+    public void allUsersDeleted() {
+        log(WalRecords.deleteAllUsers());
+    }
+
+    @Override
+    public void contactChanged(Long userId, Contact oldContact, Contact newContact) {
+        if (newContact != null) {
+            log(WalRecords.putContact(userId, newContact));
+        } else {
+            log(WalRecords.deleteContact(userId, oldContact.getId()));
+        }
+    }
+
+    /**
+     * Batch is written as one record, so it is replayed all or nothing and waits for one sync.
+     */
+    @Override
+    public void contactsChanged(Long userId, List<ContactChange> changes) {
+        log(WalRecords.contactsBatch(userId, changes));
+    }
+
+    private void log(byte[] record) {
+        changeSequence.get()[0] = writeAheadLog.append(record);
+    }
+
+    /**
+     * Only the last segment may end with a record torn by crash: it is truncated, so it is not seen
+     * as corruption after later segments are written. Corrupted record in any other segment fails startup,
+     * because changes after it must not be applied without it.
+     */
+    private long recover() throws IOException {
+        List<Long> snapshots = snapshots();
+        long firstSegment = 0;
+        if (!snapshots.isEmpty()) {
+            firstSegment = snapshots.get(snapshots.size() - 1);
+            BinarySnapshot.load(snapshotPath(firstSegment), repository);
+        }
+        List<Long> segments = new ArrayList<>();
+        for (Long segment : WriteAheadLog.segments(directory)) {
+            if (segment >= firstSegment) {
+                segments.add(segment);
+            }
+        }
+        int recordsCount = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            recordsCount += replay(WriteAheadLog.segmentPath(directory, segments.get(i)), i == segments.size() - 1);
+        }
+        log.info("Recovered " + repository.findAll().size() + " users, " + recordsCount + " log records replayed");
+        return segments.isEmpty() ? firstSegment : segments.get(segments.size() - 1);
+    }
+
+    private int replay(Path segmentPath, boolean lastSegment) throws IOException {
+        int recordsCount = 0;
+        long size = Files.size(segmentPath);
+        long offset = 0;
+        InputStream segment = new BufferedInputStream(Files.newInputStream(segmentPath), 1 << 16);
+        try (DataInputStream in = new DataInputStream(segment)) {
+            byte[] payload;
+            while ((payload = WalRecords.readRecord(in, size - offset)) != null) {
+                WalRecords.apply(payload, repository);
+                offset += WalRecords.FRAME_HEADER_SIZE + payload.length;
+                recordsCount++;
+            }
+        } catch (WalRecords.CorruptedRecordException e) {
+            if (!lastSegment) {
+                throw new IOException("Log segment " + segmentPath.getFileName() + " is corrupted at offset "
+                        + offset + ": " + e.getMessage(), e);
+            }
+            log.warn("Torn record at offset " + offset + " of log segment " + segmentPath.getFileName()
+                    + " is truncated: " + e.getMessage());
+            try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+                channel.truncate(offset);
+                channel.force(true);
+            }
+        }
+        return recordsCount;
+    }
+
+    /**
+     * Method makes renames in directory durable, so old log segments are deleted only after new snapshot
+     * survives crash.
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed", e);
+        }
+    }
+
+    private List<Long> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(it -> SNAPSHOT_NAME.matcher(it.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(it -> Long.parseLong(it.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path snapshotPath(long segment) {
+        return directory.resolve(String.format("snapshot-%020d.bin", segment));
+    }
+}
@@ -0,0 +1,306 @@
+package ru.example.persistence;
+
+import ru.example.models.Contact;
+import ru.example.models.ContactChange;
+import ru.example.models.User;
+import ru.example.models.VersionClock;
+import ru.example.repositories.UsersRepository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary records of repository changes used by write-ahead log and snapshots.
+ * Every record is framed as [int payload length][int payload crc32][payload],
+ * payload starts with record type. Records carry full entity state, so replaying
+ * a record twice gives the same result.
+ *
+ * @since 17.10.2026
+ */
+final class WalRecords {
+    static final byte SAVE_USER = 1;
+    static final byte UPDATE_USER = 2;
+    static final byte DELETE_USER = 3;
+    static final byte DELETE_ALL_USERS = 4;
+    static final byte PUT_CONTACT = 5;
+    static final byte DELETE_CONTACT = 6;
+    static final byte CONTACTS_BATCH = 7;
+
+    static final int FRAME_HEADER_SIZE = 8;
+    /**
+     * Records are never larger, so bigger length in frame header is corruption and is not allocated.
+     */
+    static final int MAX_RECORD_SIZE = 256 << 20;
+
+    private WalRecords() {
+    }
+
+    static byte[] saveUser(User user) {
+        List<Contact> contacts = new ArrayList<>(user.getContacts().values());
+        return frame(out -> {
+            out.writeByte(SAVE_USER);
+            out.writeLong(user.getId());
+            writeString(out, user.getName());
+            out.writeInt(contacts.size());
+            for (Contact contact : contacts) {
+                out.writeLong(contact.getId());
+                writeString(out, contact.getName());
+                writeString(out, contact.getPhone());
+            }
+        });
+    }
+
+    static byte[] updateUser(User user) {
+        return frame(out -> {
+            out.writeByte(UPDATE_USER);
+            out.writeLong(user.getId());
+            writeString(out, user.getName());
+        });
+    }
+
+    static byte[] deleteUser(Long userId) {
+        return frame(out -> {
+            out.writeByte(DELETE_USER);
+            out.writeLong(userId);
+        });
+    }
+
+    static byte[] deleteAllUsers() {
+        return frame(out -> out.writeByte(DELETE_ALL_USERS));
+    }
+
+    static byte[] putContact(Long userId, Contact contact) {
+        return frame(out -> {
+            out.writeByte(PUT_CONTACT);
+            out.writeLong(userId);
+            out.writeLong(contact.getId());
+            writeString(out, contact.getName());
+            writeString(out, contact.getPhone());
+        });
+    }
+
+    static byte[] deleteContact(Long userId, Long contactId) {
+        return frame(out -> {
+            out.writeByte(DELETE_CONTACT);
+            out.writeLong(userId);
+            out.writeLong(contactId);
+        });
+    }
+
+    static byte[] contactsBatch(Long userId, List<ContactChange> changes) {
+        return frame(out -> {
+            out.writeByte(CONTACTS_BATCH);
+            out.writeLong(userId);
+            out.writeInt(changes.size());
+            for (ContactChange change : changes) {
+                Contact contact = change.getNewContact();
+                if (contact != null) {
+                    out.writeByte(PUT_CONTACT);
+                    out.writeLong(contact.getId());
+                    writeString(out, contact.getName());
+                    writeString(out, contact.getPhone());
+                } else {
+                    out.writeByte(DELETE_CONTACT);
+                    out.writeLong(change.getOldContact().getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Method reads next framed record.
+     *
+     * @param in        - stream of framed records
+     * @param remaining - count of bytes left in stream
+     * @return byte[] - record payload or null if stream ends right after the previous record
+     * @throws CorruptedRecordException if record is incomplete, has invalid length or wrong checksum
+     * @throws IOException              if stream cannot be read
+     */
+    static byte[] readRecord(DataInputStream in, long remaining) throws IOException {
+        if (remaining == 0) {
+            return null;
+        }
+        if (remaining < FRAME_HEADER_SIZE) {
+            throw new CorruptedRecordException("incomplete record header");
+        }
+        int length = in.readInt();
+        int expectedCrc = in.readInt();
+        if (length < 1 || length > MAX_RECORD_SIZE) {
+            throw new CorruptedRecordException("invalid record length " + length);
+        }
+        if (length > remaining - FRAME_HEADER_SIZE) {
+            throw new CorruptedRecordException("incomplete record of " + length + " bytes");
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new CorruptedRecordException("wrong record checksum");
+        }
+        return payload;
+    }
+
+    /**
+     * Method applies record payload to repository.
+     * Changes of missing users and contacts are skipped, id counters are moved past all ids in record.
+     *
+     * @param payload    - record payload
+     * @param repository - repository to change
+     * @throws IOException if record is malformed
+     */
+    static void apply(byte[] payload, UsersRepository repository) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case SAVE_USER: {
+                long userId = readUserId(in);
+                String name = readString(in);
+                int contactsCount = in.readInt();
+                long version = VersionClock.reserve(contactsCount);
+                List<Contact> contacts = new ArrayList<>(contactsCount);
+                for (int i = 0; i < contactsCount; i++) {
+                    contacts.add(readContact(in, version + i));
+                }
+                repository.save(User.of(userId, name, contacts));
+                break;
+            }
+            case UPDATE_USER: {
+                long userId = readUserId(in);
+                String name = readString(in);
+                if (repository.findById(userId).isPresent()) {
+                    repository.updateUserName(userId, name);
+                }
+                break;
+            }
+            case DELETE_USER: {
+                long userId = readUserId(in);
+                if (repository.findById(userId).isPresent()) {
+                    repository.deleteById(userId);
+                }
+                break;
+            }
+            case DELETE_ALL_USERS:
+                repository.deleteAll();
+                break;
+            case PUT_CONTACT: {
+                long userId = readUserId(in);
+                Contact contact = readContact(in, VersionClock.next());
+                if (repository.findById(userId).isPresent()) {
+                    repository.addContact(userId, contact);
+                }
+                break;
+            }
+            case DELETE_CONTACT: {
+                long userId = readUserId(in);
+                applyDeleteContact(in, userId, repository);
+                break;
+            }
+            case CONTACTS_BATCH: {
+                long userId = readUserId(in);
+                int changesCount = in.readInt();
+                boolean userExists = repository.findById(userId).isPresent();
+                for (int i = 0; i < changesCount; i++) {
+                    if (in.readByte() == PUT_CONTACT) {
+                        Contact contact = readContact(in, VersionClock.next());
+                        if (userExists) {
+                            repository.addContact(userId, contact);
+                        }
+                    } else {
+                        applyDeleteContact(in, userId, repository);
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readUserId(DataInput in) throws IOException {
+        long userId = in.readLong();
+        User.reserveIdsUpTo(userId);
+        return userId;
+    }
+
+    private static void applyDeleteContact(DataInput in, long userId, UsersRepository repository) throws IOException {
+        long contactId = in.readLong();
+        Contact.reserveIdsUpTo(contactId);
+        if (repository.findById(userId).isPresent()
+                && repository.findUserContactByContactId(userId, contactId).isPresent()) {
+            repository.deleteContactByContactId(userId, contactId);
+        }
+    }
+
+    private static Contact readContact(DataInput in, long version) throws IOException {
+        long contactId = in.readLong();
+        Contact.reserveIdsUpTo(contactId);
+        return Contact.of(contactId, readString(in), readString(in), version);
+    }
+
+    private static byte[] frame(RecordBody body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0);
+            body.write(out);
+            byte[] record = bytes.toByteArray();
+            int length = record.length - FRAME_HEADER_SIZE;
+            if (length > MAX_RECORD_SIZE) {
+                throw new IllegalStateException("Record of " + length + " bytes is larger than "
+                        + MAX_RECORD_SIZE + " bytes");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record, FRAME_HEADER_SIZE, length);
+            writeInt(record, 0, length);
+            writeInt(record, 4, (int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Record that cannot be read: torn by crash at the end of the last segment or corrupted anywhere else.
+     */
+    static final class CorruptedRecordException extends IOException {
+        CorruptedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,250 @@
+package ru.example.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of framed records split into numbered segments.
+ * Records are written by one background thread with group commit:
+ * all records appended while previous batch was being synced are written and synced together,
+ * so one fsync covers many concurrent writers.
+ * Append never blocks, because it is called under locks of changed data. Writers that don't wait
+ * for sync are slowed down by awaitCapacity instead, after their locks are released,
+ * so records not written yet take no more than about maxPendingBytes.
+ * The first write failure fails the log: every later append and wait throws.
+ *
+ * @since 17.10.2026
+ */
+@Slf4j
+class WriteAheadLog implements Closeable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final Thread writer;
+    private final long maxPendingBytes;
+    private List<Object> pending = new ArrayList<>();
+    private long pendingBytes;
+    private long appendedSequence;
+    private long durableSequence;
+    private long lastSegment;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+
+    WriteAheadLog(Path directory, long segment, long maxPendingBytes) throws IOException {
+        this.directory = directory;
+        this.maxPendingBytes = maxPendingBytes;
+        this.lastSegment = segment;
+        this.channel = openSegment(segment);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Method appends record to the log without waiting for it to be written.
+     *
+     * @param record - framed record
+     * @return long - record sequence number for awaitDurable
+     */
+    long append(byte[] record) {
+        synchronized (lock) {
+            checkState();
+            pending.add(record);
+            pendingBytes += record.length;
+            lock.notifyAll();
+            return ++appendedSequence;
+        }
+    }
+
+    /**
+     * Method waits until record with sequence number is written and synced to disk.
+     *
+     * @param sequence - record sequence number
+     */
+    void awaitDurable(long sequence) {
+        synchronized (lock) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log failed", failure);
+                }
+                waitForWriter();
+            }
+        }
+    }
+
+    /**
+     * Method waits until records that are not written yet fit to maxPendingBytes.
+     */
+    void awaitCapacity() {
+        synchronized (lock) {
+            while (pendingBytes > maxPendingBytes && failure == null && !closed) {
+                waitForWriter();
+            }
+            checkState();
+        }
+    }
+
+    /**
+     * Method checks that records still can be appended.
+     * If log failed or was closed then exception throws.
+     */
+    void checkWritable() {
+        synchronized (lock) {
+            checkState();
+        }
+    }
+
+    /**
+     * Method starts new log segment. Records appended after this call go to the new segment.
+     *
+     * @return long - new segment number
+     */
+    long rotate() {
+        synchronized (lock) {
+            checkState();
+            Long segment = ++lastSegment;
+            pending.add(segment);
+            lock.notifyAll();
+            return segment;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%020d.log", segment));
+    }
+
+    /**
+     * Method lists numbers of all log segments in directory.
+     *
+     * @param directory - log directory
+     * @return List<Long> - segment numbers in ascending order
+     * @throws IOException if directory cannot be read
+     */
+    static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(it -> SEGMENT_NAME.matcher(it.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(it -> Long.parseLong(it.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Object> batch;
+            long batchSequence;
+            long batchBytes;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                batchSequence = appendedSequence;
+                batchBytes = pendingBytes;
+            }
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                log.error("Write-ahead log failed", e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durableSequence = batchSequence;
+                pendingBytes -= batchBytes;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void writeBatch(List<Object> batch) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        for (Object item : batch) {
+            if (item instanceof byte[]) {
+                buffers.add(ByteBuffer.wrap((byte[]) item));
+            } else {
+                write(buffers);
+                buffers.clear();
+                channel.force(false);
+                channel.close();
+                channel = openSegment((Long) item);
+            }
+        }
+        write(buffers);
+        channel.force(false);
+    }
+
+    private void write(List<ByteBuffer> buffers) throws IOException {
+        ByteBuffer[] data = buffers.toArray(new ByteBuffer[0]);
+        long remaining = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+        while (remaining > 0) {
+            remaining -= channel.write(data);
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void waitForWriter() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for write-ahead log", e);
+        }
+    }
+
+    private void checkState() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package ru.example.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.models.Contact;
+import ru.example.models.ContactChange;
+import ru.example.models.ContactChanges;
+import ru.example.models.ContactFeedEntry;
+import ru.example.models.User;
+import ru.example.models.UserInfoChange;
+import ru.example.models.VersionClock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed of contact changes of every telephone book for incremental sync.
+ * Sequences are taken from VersionClock, the same clock as user versions, so ETag of full contacts response
+ * is a valid sequence to continue from, and sequences keep growing after restart.
+ * Every telephone book keeps only the latest "max-changes-per-user" changes. If client asks for changes
+ * after sequence older than the oldest kept change, older than feed start or than saving of the whole book,
+ * resync is required. Log of telephone book without changes keeps only this sequence.
+ * All telephone books together keep only the latest "max-changes" changes: appended changes are queued
+ * in append order and the oldest ones are dropped from their logs when queue is longer than that,
+ * so feed memory does not grow with count of telephone books.
+ * Log of deleted telephone book is never created again: log created concurrently with deletion
+ * is removed by its creator, and subscriber of deleted book gets "deleted" event at once.
+ * Subscribers of telephone book are notified under lock of its log right after change is appended,
+ * so subscriber never misses change between replayed and pushed ones and gets changes in sequence order.
+ *
+ * @since 17.10.2026
+ */
+@Component
+public class ContactChangeFeed implements UsersRepositoryListener {
+    private static final long NOT_APPENDED = -1;
+
+    private final UsersRepository repository;
+    private final int maxChangesPerUser;
+    private final long startSequence = VersionClock.next();
+    private final long maxChanges;
+    private final ConcurrentLongObjectMap<ChangeLog> logs = new ConcurrentLongObjectMap<>();
+    private final Queue<AppendedChanges> appendOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedChanges = new AtomicLong();
+
+    public ContactChangeFeed(UsersRepository repository,
+                             @Value("${telephonebook.feed.max-changes-per-user:1000}") int maxChangesPerUser,
+                             @Value("${telephonebook.feed.max-changes:1000000}") long maxChanges) {
+        this.repository = repository;
+        this.maxChangesPerUser = maxChangesPerUser;
+        this.maxChanges = maxChanges;
+    }
+
+    @PostConstruct
+    public void start() {
+        repository.addListener(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        repository.removeListener(this);
+    }
+
+    /**
+     * Method returns changes of telephone book made after given sequence.
+     *
+     * @param userId - telephone book owner id
+     * @param since  - sequence of the last known change or ETag of full contacts response
+     * @return ContactChanges - changes in the order they were made or resync signal
+     */
+    public ContactChanges findChanges(long userId, long since) {
+        ChangeLog log = logs.get(userId);
+        if (log != null) {
+            return log.since(since);
+        }
+        ContactChanges changes = new ContactChanges();
+        changes.setLastSequence(since);
+        changes.setResyncRequired(since < startSequence);
+        return changes;
+    }
+
+    /**
+     * Method subscribes to changes of telephone book made after subscription.
+     *
+     * @param userId     - telephone book owner id
+     * @param since      - sequence to replay changes after or null if changes made before are not needed
+     * @param subscriber - subscriber that must not block
+     */
+    public void subscribe(long userId, Long since, ContactFeedSubscriber subscriber) {
+        if (!logFor(userId).subscribe(since, subscriber)) {
+            subscriber.userDeleted();
+        }
+    }
+
+    /**
+     * Method unsubscribes from changes of telephone book, nothing happens if subscriber was already unsubscribed.
+     *
+     * @param userId     - telephone book owner id
+     * @param subscriber - subscriber
+     */
+    public void unsubscribe(long userId, ContactFeedSubscriber subscriber) {
+        ChangeLog log = logs.get(userId);
+        if (log != null) {
+            log.unsubscribe(subscriber);
+        }
+    }
+
+    @Override
+    public void userSaved(User user) {
+        logFor(user.getId()).reset(user.version());
+    }
+
+    @Override
+    public void userInfoUpdated(User user) {
+        ChangeLog log = logs.get(user.getId());
+        if (log != null) {
+            log.userInfoUpdated(user);
+        }
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        ChangeLog log = logs.remove(user.getId());
+        if (log != null) {
+            log.userDeleted();
+        }
+    }
+
+    @Override
+    public void allUsersDeleted() {
+        for (ChangeLog log : logs.values()) {
+            log.userDeleted();
+        }
+        logs.clear();
+        appendOrder.clear();
+        queuedChanges.set(0);
+    }
+
+    @Override
+    public void contactChanged(Long userId, Contact oldContact, Contact newContact) {
+        contactsChanged(userId, Collections.singletonList(new ContactChange(oldContact, newContact)));
+    }
+
+    /**
+     * Changes of batch are appended together, so feed reader never sees part of batch.
+     */
+    @Override
+    public void contactsChanged(Long userId, List<ContactChange> changes) {
+        ChangeLog log = logFor(userId);
+        long lastSequence = log.append(changes);
+        if (lastSequence != NOT_APPENDED) {
+            appendOrder.add(new AppendedChanges(log, lastSequence, changes.size()));
+            queuedChanges.addAndGet(changes.size());
+            dropOldestChanges();
+        }
+    }
+
+    /**
+     * Method drops the oldest changes of all telephone books while more than maxChanges are queued.
+     */
+    private void dropOldestChanges() {
+        while (queuedChanges.get() > maxChanges) {
+            AppendedChanges oldest = appendOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queuedChanges.addAndGet(-oldest.count);
+            oldest.log.dropUpTo(oldest.lastSequence);
+        }
+    }
+
+    /**
+     * Method returns log of telephone book, creating it if necessary.
+     * Repository removes user before it notifies about deletion, so if user is still in repository after
+     * log was created, deletion will remove this log. Otherwise log was created after deletion and
+     * it is removed here: such log is marked as deleted and its user is not expected to come back.
+     */
+    private ChangeLog logFor(long userId) {
+        ChangeLog log = logs.get(userId);
+        if (log == null) {
+            ChangeLog newLog = new ChangeLog(startSequence);
+            log = logs.putIfAbsent(userId, newLog);
+            if (log == null) {
+                log = newLog;
+                if (!repository.findAll().containsKey(userId)) {
+                    ChangeLog removedLog = logs.remove(userId);
+                    if (removedLog != null) {
+                        removedLog.userDeleted();
+                    }
+                    newLog.userDeleted();
+                }
+            }
+        }
+        return log;
+    }
+
+    private static final class AppendedChanges {
+        private final ChangeLog log;
+        private final long lastSequence;
+        private final int count;
+
+        AppendedChanges(ChangeLog log, long lastSequence, int count) {
+            this.log = log;
+            this.lastSequence = lastSequence;
+            this.count = count;
+        }
+    }
+
+    private final class ChangeLog {
+        private ArrayDeque<ContactFeedEntry> entries;
+        private List<ContactFeedSubscriber> subscribers;
+        /**
+         * Changes with sequence not greater than this one may be missing in log.
+         */
+        private long lostUpTo;
+        private boolean deleted;
+
+        ChangeLog(long lostUpTo) {
+            this.lostUpTo = lostUpTo;
+        }
+
+        /**
+         * Method appends changes and returns sequence of the last one or NOT_APPENDED if log is deleted.
+         */
+        synchronized long append(List<ContactChange> changes) {
+            if (deleted || changes.isEmpty()) {
+                return NOT_APPENDED;
+            }
+            if (entries == null) {
+                entries = new ArrayDeque<>();
+            }
+            for (ContactChange change : changes) {
+                Contact contact = change.getNewContact();
+                Long contactId = contact != null ? contact.getId() : change.getOldContact().getId();
+                ContactFeedEntry entry = new ContactFeedEntry(VersionClock.next(), contactId, contact);
+                entries.addLast(entry);
+                if (entries.size() > maxChangesPerUser) {
+                    lostUpTo = entries.removeFirst().getSequence();
+                }
+                if (subscribers != null) {
+                    subscribers.removeIf(subscriber -> !subscriber.contactChanged(entry));
+                }
+            }
+            return entries.getLast().getSequence();
+        }
+
+        synchronized void dropUpTo(long sequence) {
+            while (entries != null && !entries.isEmpty() && entries.getFirst().getSequence() <= sequence) {
+                lostUpTo = entries.removeFirst().getSequence();
+            }
+        }
+
+        /**
+         * Contacts of saved book are known to clients that got them with version not less than saved one.
+         */
+        synchronized void reset(long savedVersion) {
+            entries = null;
+            lostUpTo = savedVersion;
+            if (subscribers != null) {
+                subscribers.removeIf(subscriber -> !subscriber.resyncRequired(savedVersion));
+            }
+        }
+
+        synchronized void userInfoUpdated(User user) {
+            if (subscribers != null) {
+                UserInfoChange change = new UserInfoChange(VersionClock.next(), user.getId(), user.getName());
+                subscribers.removeIf(subscriber -> !subscriber.userInfoUpdated(change));
+            }
+        }
+
+        synchronized void userDeleted() {
+            deleted = true;
+            entries = null;
+            if (subscribers != null) {
+                subscribers.forEach(ContactFeedSubscriber::userDeleted);
+                subscribers = null;
+            }
+        }
+
+        /**
+         * Method returns false if log is deleted and subscriber is not added.
+         */
+        synchronized boolean subscribe(Long since, ContactFeedSubscriber subscriber) {
+            if (deleted) {
+                return false;
+            }
+            if (since != null) {
+                subscriber.replay(since(since));
+            }
+            if (subscribers == null) {
+                subscribers = new ArrayList<>(1);
+            }
+            subscribers.add(subscriber);
+            return true;
+        }
+
+        synchronized void unsubscribe(ContactFeedSubscriber subscriber) {
+            if (subscribers != null) {
+                subscribers.remove(subscriber);
+            }
+        }
+
+        synchronized ContactChanges since(long since) {
+            ContactChanges changes = new ContactChanges();
+            changes.setLastSequence(since);
+            if (since < lostUpTo) {
+                changes.setResyncRequired(true);
+                return changes;
+            }
+            if (entries == null) {
+                return changes;
+            }
+            Iterator<ContactFeedEntry> newestFirst = entries.descendingIterator();
+            while (newestFirst.hasNext()) {
+                ContactFeedEntry entry = newestFirst.next();
+                if (entry.getSequence() <= since) {
+                    break;
+                }
+                changes.getChanges().add(entry);
+            }
+            Collections.reverse(changes.getChanges());
+            if (!changes.getChanges().isEmpty()) {
+                changes.setLastSequence(entries.getLast().getSequence());
+            }
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.example.repositories;
+
+import ru.example.models.ContactChanges;
+import ru.example.models.ContactFeedEntry;
+import ru.example.models.UserInfoChange;
+
+/**
+ * Subscriber for changes of one telephone book in ContactChangeFeed.
+ * Methods are called under lock of telephone book log by threads that change repository,
+ * so they must not block. Subscriber that returns false is unsubscribed.
+ *
+ * @since 17.10.2026
+ */
+public interface ContactFeedSubscriber {
+
+    /**
+     * Method is called once on subscription before any change is pushed, if subscriber asked for older changes.
+     * Replayed changes are limited by log size, so they are accepted all.
+     *
+     * @param changes - changes made after requested sequence or resync signal
+     */
+    void replay(ContactChanges changes);
+
+    /**
+     * Method is called after contact change was appended to feed.
+     *
+     * @param entry - change with its sequence
+     * @return false if subscriber must be unsubscribed
+     */
+    boolean contactChanged(ContactFeedEntry entry);
+
+    /**
+     * Method is called after user info was updated.
+     *
+     * @param change - new user info with its sequence
+     * @return false if subscriber must be unsubscribed
+     */
+    boolean userInfoUpdated(UserInfoChange change);
+
+    /**
+     * Method is called when changes are not known anymore and all contacts must be read again:
+     * on subscription after too old sequence or after the whole telephone book was saved.
+     *
+     * @param sequence - sequence to continue from after all contacts are read again
+     * @return false if subscriber must be unsubscribed
+     */
+    boolean resyncRequired(long sequence);
+
+    /**
+     * Method is called after user was deleted, subscriber is unsubscribed after that.
+     */
+    void userDeleted();
+}
@@ -0,0 +1,156 @@
+package ru.example.repositories;
+
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.models.Contact;
+import ru.example.models.PhoneOwner;
+import ru.example.search.PackedDigits;
+import ru.example.search.PhoneNumbers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Global index from normalized phone number to all contacts with this number in all telephone books.
+ * Phone numbers are keyed by packed digits and owners of number are kept as flat array of
+ * (user id, contact id) pairs, so index takes 16 bytes per contact plus one array per distinct number,
+ * without digit strings and PhoneOwner objects. Numbers longer than PackedDigits.MAX_DIGITS are keyed by digits.
+ * Arrays are copy-on-write under striped locks: readers take array without locks,
+ * change of number owners copies all of them, which is cheap while number has few owners.
+ * Number shared by more than SHARED_NUMBER_THRESHOLD contacts (e.g. hotline) is moved to map
+ * from contact id to user id, so adding and removing its owners doesn't copy them.
+ *
+ * @since 17.10.2026
+ */
+class ReversePhoneIndex {
+    static final int SHARED_NUMBER_THRESHOLD = 64;
+    private static final int STRIPES = 1024;
+    private static final long[] NO_OWNERS = new long[0];
+
+    /**
+     * Owners of number: long[] of (user id, contact id) pairs or ConcurrentLongObjectMap from contact id to user id.
+     */
+    private final ConcurrentLongObjectMap<Object> owners = new ConcurrentLongObjectMap<>();
+    private final ConcurrentMap<String, Object> longNumberOwners = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+
+    ReversePhoneIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(Long userId, Contact contact) {
+        String digits = PhoneNumbers.digits(contact.getPhone());
+        if (digits.isEmpty()) {
+            return;
+        }
+        long packedDigits = PackedDigits.pack(digits);
+        synchronized (lockOf(packedDigits, digits)) {
+            Object phoneOwners = get(packedDigits, digits);
+            if (phoneOwners instanceof ConcurrentLongObjectMap) {
+                ((ConcurrentLongObjectMap<Long>) phoneOwners).put(contact.getId(), userId);
+                return;
+            }
+            long[] pairs = (long[]) phoneOwners;
+            if (pairs.length / 2 < SHARED_NUMBER_THRESHOLD) {
+                long[] result = Arrays.copyOf(pairs, pairs.length + 2);
+                result[pairs.length] = userId;
+                result[pairs.length + 1] = contact.getId();
+                put(packedDigits, digits, result);
+                return;
+            }
+            ConcurrentLongObjectMap<Long> sharedOwners = new ConcurrentLongObjectMap<>();
+            for (int i = 0; i < pairs.length; i += 2) {
+                sharedOwners.put(pairs[i + 1], pairs[i]);
+            }
+            sharedOwners.put(contact.getId(), userId);
+            put(packedDigits, digits, sharedOwners);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void remove(Long userId, Contact contact) {
+        String digits = PhoneNumbers.digits(contact.getPhone());
+        if (digits.isEmpty()) {
+            return;
+        }
+        long packedDigits = PackedDigits.pack(digits);
+        synchronized (lockOf(packedDigits, digits)) {
+            Object phoneOwners = get(packedDigits, digits);
+            if (phoneOwners instanceof ConcurrentLongObjectMap) {
+                ConcurrentLongObjectMap<Long> sharedOwners = (ConcurrentLongObjectMap<Long>) phoneOwners;
+                if (userId.equals(sharedOwners.get(contact.getId()))) {
+                    sharedOwners.remove(contact.getId());
+                    if (sharedOwners.isEmpty()) {
+                        put(packedDigits, digits, NO_OWNERS);
+                    }
+                }
+                return;
+            }
+            long[] pairs = (long[]) phoneOwners;
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (pairs[i] == userId && pairs[i + 1] == contact.getId()) {
+                    long[] result = new long[pairs.length - 2];
+                    System.arraycopy(pairs, 0, result, 0, i);
+                    System.arraycopy(pairs, i + 2, result, i, result.length - i);
+                    put(packedDigits, digits, result);
+                    return;
+                }
+            }
+        }
+    }
+
+    void clear() {
+        owners.clear();
+        longNumberOwners.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    List<PhoneOwner> find(String phone) {
+        String digits = PhoneNumbers.digits(phone);
+        Object phoneOwners = digits.isEmpty() ? NO_OWNERS : get(PackedDigits.pack(digits), digits);
+        if (phoneOwners instanceof ConcurrentLongObjectMap) {
+            List<PhoneOwner> result = new ArrayList<>();
+            ((ConcurrentLongObjectMap<Long>) phoneOwners).asMap()
+                    .forEach((contactId, userId) -> result.add(new PhoneOwner(userId, contactId)));
+            return result;
+        }
+        long[] pairs = (long[]) phoneOwners;
+        List<PhoneOwner> result = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            result.add(new PhoneOwner(pairs[i], pairs[i + 1]));
+        }
+        return result;
+    }
+
+    private Object get(long packedDigits, String digits) {
+        Object phoneOwners = packedDigits != PackedDigits.NOT_PACKED
+                ? owners.get(packedDigits)
+                : longNumberOwners.get(digits);
+        return phoneOwners == null ? NO_OWNERS : phoneOwners;
+    }
+
+    private void put(long packedDigits, String digits, Object phoneOwners) {
+        boolean empty = phoneOwners instanceof long[] && ((long[]) phoneOwners).length == 0;
+        if (packedDigits != PackedDigits.NOT_PACKED) {
+            if (empty) {
+                owners.remove(packedDigits);
+            } else {
+                owners.put(packedDigits, phoneOwners);
+            }
+        } else if (empty) {
+            longNumberOwners.remove(digits);
+        } else {
+            longNumberOwners.put(digits, phoneOwners);
+        }
+    }
+    private Object lockOf(long packedDigits, String digits) {
+        int hash = packedDigits != PackedDigits.NOT_PACKED ? Long.hashCode(packedDigits) : digits.hashCode();
+        hash ^= hash >>> 16;
+        return locks[hash & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,231 @@
+package ru.example.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.models.Contact;
+import ru.example.models.SearchResult;
+import ru.example.models.User;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of search results with W-TinyLFU eviction.
+ * Result is cached by (scope, generation, normalized query): scope is 0 for users search and user id
+ * for contacts search, generation is taken before search. Users generation changes on every user change,
+ * generation of telephone book changes on every change of its contacts, so stale results are never found
+ * and are evicted as not used. All generations are taken from one counter, so generation of deleted
+ * and created again telephone book never repeats.
+ * Results with more than "max-results" items are not cached, cache with "max-size" 0 does not cache anything.
+ *
+ * @since 17.10.2026
+ */
+@Component
+public class SearchCache implements UsersRepositoryListener {
+    private static final long USERS_SCOPE = 0;
+
+    private final Cache<Key, SearchResult<?>> results;
+    private final boolean enabled;
+    private final int maxResults;
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicLong usersGeneration = new AtomicLong(generations.incrementAndGet());
+    private final ConcurrentLongObjectMap<AtomicLong> contactsGenerations = new ConcurrentLongObjectMap<>();
+
+    public SearchCache(@Value("${telephonebook.search-cache.max-size:10000}") long maxSize,
+                       @Value("${telephonebook.search-cache.max-results:1000}") int maxResults,
+                       MeterRegistry meterRegistry) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.enabled = maxSize > 0;
+        this.maxResults = maxResults;
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "searchResults");
+        Gauge.builder("telephonebook.search.cache.hit.ratio", results, it -> it.stats().hitRate())
+                .description("Part of searches answered from cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Method creates cache that never keeps results.
+     *
+     * @return SearchCache - disabled cache
+     */
+    public static SearchCache disabled() {
+        return new SearchCache(0, 0, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Method returns current generation of all users, it must be taken before users search.
+     *
+     * @return long - users generation
+     */
+    public long usersGeneration() {
+        return usersGeneration.get();
+    }
+
+    /**
+     * Method returns current generation of user's contacts, it must be taken before contacts search.
+     *
+     * @param userId - telephone book owner id
+     * @return long - contacts generation
+     */
+    public long contactsGeneration(long userId) {
+        AtomicLong generation = contactsGenerations.get(userId);
+        if (generation == null) {
+            AtomicLong newGeneration = new AtomicLong(generations.incrementAndGet());
+            generation = contactsGenerations.putIfAbsent(userId, newGeneration);
+            if (generation == null) {
+                generation = newGeneration;
+            }
+        }
+        return generation.get();
+    }
+
+    /**
+     * Method finds cached users search result.
+     *
+     * @param generation - users generation
+     * @param query      - normalized query
+     * @return SearchResult<User> - cached result or null
+     */
+    @SuppressWarnings("unchecked")
+    public SearchResult<User> findUsers(long generation, String query) {
+        return (SearchResult<User>) results.getIfPresent(new Key(USERS_SCOPE, generation, query));
+    }
+
+    /**
+     * Method caches users search result.
+     *
+     * @param generation - users generation taken before search
+     * @param query      - normalized query
+     * @param result     - search result
+     * @return SearchResult<User> - result with unmodifiable items
+     */
+    public SearchResult<User> putUsers(long generation, String query, SearchResult<User> result) {
+        return put(new Key(USERS_SCOPE, generation, query), result);
+    }
+
+    /**
+     * Method finds cached contacts search result.
+     *
+     * @param userId     - telephone book owner id
+     * @param generation - contacts generation
+     * @param query      - normalized query
+     * @return SearchResult<Contact> - cached result or null
+     */
+    @SuppressWarnings("unchecked")
+    public SearchResult<Contact> findContacts(long userId, long generation, String query) {
+        return (SearchResult<Contact>) results.getIfPresent(new Key(userId, generation, query));
+    }
+
+    /**
+     * Method caches contacts search result.
+     *
+     * @param userId     - telephone book owner id
+     * @param generation - contacts generation taken before search
+     * @param query      - normalized query
+     * @param result     - search result
+     * @return SearchResult<Contact> - result with unmodifiable items
+     */
+    public SearchResult<Contact> putContacts(long userId, long generation, String query,
+                                             SearchResult<Contact> result) {
+        return put(new Key(userId, generation, query), result);
+    }
+
+    /**
+     * Method returns approximate count of cached results.
+     *
+     * @return long - cached results count
+     */
+    public long size() {
+        return results.estimatedSize();
+    }
+
+    @Override
+    public void userSaved(User user) {
+        usersChanged();
+        contactsChanged(user.getId());
+    }
+
+    @Override
+    public void userInfoUpdated(User user) {
+        usersChanged();
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        usersChanged();
+        contactsGenerations.remove(user.getId());
+    }
+
+    @Override
+    public void allUsersDeleted() {
+        usersChanged();
+        contactsGenerations.clear();
+        results.invalidateAll();
+    }
+
+    @Override
+    public void contactChanged(Long userId, Contact oldContact, Contact newContact) {
+        contactsChanged(userId);
+    }
+
+    private <T> SearchResult<T> put(Key key, SearchResult<T> result) {
+        if (!enabled || result.getItems().size() > maxResults) {
+            return result;
+        }
+        SearchResult<T> cachedResult = new SearchResult<>(Collections.unmodifiableList(result.getItems()),
+                result.getCandidates());
+        results.put(key, cachedResult);
+        return cachedResult;
+    }
+
+    private void usersChanged() {
+        usersGeneration.set(generations.incrementAndGet());
+    }
+
+    /**
+     * Generation is changed only if it was taken by search, otherwise nothing can be cached for telephone book.
+     */
+    private void contactsChanged(long userId) {
+        AtomicLong generation = contactsGenerations.get(userId);
+        if (generation != null) {
+            generation.set(generations.incrementAndGet());
+        }
+    }
+
+    private static final class Key {
+        private final long scope;
+        private final long generation;
+        private final String query;
+
+        Key(long scope, long generation, String query) {
+            this.scope = scope;
+            this.generation = generation;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return scope == key.scope && generation == key.generation && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, generation, query);
+        }
+    }
+}
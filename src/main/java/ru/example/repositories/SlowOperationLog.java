@@ -0,0 +1,91 @@
+package ru.example.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.example.models.SlowOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * Log of repository operations that took longer than threshold.
+ * Operations are written to lock-free ring buffer, so the log keeps only the latest "capacity" operations
+ * and writers never wait for each other. Only sampled part of slow operations is written
+ * (sample rate from 0 to 1), so logging stays cheap when everything becomes slow.
+ * Fast operations are only compared with threshold, nothing is allocated for them.
+ *
+ * @since 17.10.2026
+ */
+@Component
+public class SlowOperationLog {
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final AtomicReferenceArray<SlowOperation> operations;
+    private final int mask;
+    private final AtomicLong nextPosition = new AtomicLong();
+
+    public SlowOperationLog(@Value("${telephonebook.slow-log.threshold-ms:100}") long thresholdMillis,
+                            @Value("${telephonebook.slow-log.sample-rate:1.0}") double sampleRate,
+                            @Value("${telephonebook.slow-log.capacity:1024}") int capacity) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.operations = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Method creates log that never records operations.
+     *
+     * @return SlowOperationLog - disabled log
+     */
+    public static SlowOperationLog disabled() {
+        return new SlowOperationLog(Long.MAX_VALUE, 0, 1);
+    }
+
+    /**
+     * Method records operation if it is slower than threshold and is sampled.
+     *
+     * @param operation    - operation name
+     * @param query        - search query
+     * @param userId       - telephone book owner id, null for operations over all users
+     * @param candidates   - count of checked candidates
+     * @param results      - count of found records
+     * @param elapsedNanos - operation duration
+     */
+    public void record(String operation, String query, Long userId, int candidates, int results, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos
+                || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        SlowOperation slowOperation = new SlowOperation(System.currentTimeMillis(), operation, query, userId,
+                candidates, results, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        operations.set((int) (nextPosition.getAndIncrement() & mask), slowOperation);
+    }
+
+    /**
+     * Method returns the slowest operations among recorded ones.
+     *
+     * @param limit - max operations count
+     * @return List<SlowOperation> - operations ordered by duration, the slowest first
+     */
+    public List<SlowOperation> findSlowest(int limit) {
+        List<SlowOperation> recorded = new ArrayList<>(operations.length());
+        for (int i = 0; i < operations.length(); i++) {
+            SlowOperation operation = operations.get(i);
+            if (operation != null) {
+                recorded.add(operation);
+            }
+        }
+        return recorded.stream()
+                .sorted(Comparator.comparingLong(SlowOperation::getElapsedMicros).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
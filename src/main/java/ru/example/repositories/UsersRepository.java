@@ -1,14 +1,35 @@
 package ru.example.repositories;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Repository;
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.collections.ConcurrentLongSortedSet;
 import ru.example.exceptions.ContactNotFoundException;
 import ru.example.exceptions.UserNotFoundException;
+import ru.example.models.BatchResult;
 import ru.example.models.Contact;
+import ru.example.models.ContactChange;
+import ru.example.models.ContactChangeListener;
+import ru.example.models.ContactOperation;
+import ru.example.models.Page;
+import ru.example.models.PhoneOwner;
+import ru.example.models.SearchResult;
 import ru.example.models.User;
+import ru.example.search.NGramIndex;
+import ru.example.search.PhoneNumbers;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Repository for users list and users' contact lists
@@ -17,11 +38,69 @@ import java.util.stream.Collectors;
  * @since 05.12.2019
  */
 @Repository
+@DependsOn("contactStorageConfiguration")
 public class UsersRepository {
+    private static final int USER_ID_LOCK_STRIPES = 256;
 
-    private Map<Long, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentLongObjectMap<User> users = new ConcurrentLongObjectMap<>();
+    private final ConcurrentLongSortedSet userIds = new ConcurrentLongSortedSet();
+    private final NGramIndex userNameIndex = new NGramIndex(String::toUpperCase);
+    private final ReversePhoneIndex reversePhoneIndex = new ReversePhoneIndex();
+    private final List<UsersRepositoryListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Read lock is taken by every change and write lock by deletion of all users.
+     */
+    private final StampedLock changesLock = new StampedLock();
+    /**
+     * Striped locks of user ids: saving and deleting of the same user change users map and ordered ids together.
+     */
+    private final Object[] userIdLocks = new Object[USER_ID_LOCK_STRIPES];
+    private final UsersRepositoryMetrics metrics;
+    private final SlowOperationLog slowOperationLog;
+    private final SearchCache searchCache;
 
+    /**
+     * Repository without metrics: meters of empty composite registry do not record anything.
+     */
     public UsersRepository() {
+        this(new CompositeMeterRegistry());
+    }
+
+    public UsersRepository(MeterRegistry meterRegistry) {
+        this(meterRegistry, SlowOperationLog.disabled());
+    }
+
+    public UsersRepository(MeterRegistry meterRegistry, SlowOperationLog slowOperationLog) {
+        this(meterRegistry, slowOperationLog, SearchCache.disabled());
+    }
+
+    @Autowired
+    public UsersRepository(MeterRegistry meterRegistry, SlowOperationLog slowOperationLog, SearchCache searchCache) {
+        for (int i = 0; i < USER_ID_LOCK_STRIPES; i++) {
+            userIdLocks[i] = new Object();
+        }
+        this.metrics = new UsersRepositoryMetrics(meterRegistry, users);
+        this.slowOperationLog = slowOperationLog;
+        this.searchCache = searchCache;
+        listeners.add(searchCache);
+    }
+
+    /**
+     * Method registers listener for all repository changes.
+     *
+     * @param listener - listener to add
+     */
+    public void addListener(UsersRepositoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Method unregisters listener of repository changes.
+     *
+     * @param listener - listener to remove
+     */
+    public void removeListener(UsersRepositoryListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -31,9 +110,41 @@ public class UsersRepository {
      * @return User - created user
      */
     public User save(User user) {
+        return metrics.save.record(() -> change(() -> saveUser(user)));
+    }
+
+    /**
+     * Method save batch of new users (telephone book owners) as one change,
+     * so listeners wait for persistence of the whole batch once.
+     *
+     * @param newUsers - new users
+     * @return List<User> - created users in the same order
+     */
+    public List<User> saveAll(List<User> newUsers) {
+        return metrics.saveAll.record(() -> change(() -> {
+            List<User> savedUsers = new ArrayList<>(newUsers.size());
+            for (User user : newUsers) {
+                savedUsers.add(saveUser(user));
+            }
+            return savedUsers;
+        }));
+    }
+
+    private User saveUser(User user) {
         Long userId = user.getId();
-        users.put(userId, user);
-        return users.get(userId);
+        synchronized (userIdLock(userId)) {
+            User previousUser = users.put(userId, user);
+            userIds.add(userId);
+            if (previousUser != null) {
+                userNameIndex.update(userId, previousUser.getName(), user.getName());
+                unindexContacts(previousUser);
+            } else {
+                userNameIndex.add(userId, user.getName());
+            }
+            indexContacts(user);
+            listeners.forEach(it -> it.userSaved(user));
+            return users.get(userId);
+        }
     }
 
     /**
@@ -43,31 +154,75 @@ public class UsersRepository {
      * @return String - message that user was deleted
      */
     public String deleteById(Long id) {
-        User currentUser = users.get(id);
-        if (currentUser == null) {
-            throw new UserNotFoundException(id);
-        }
-        users.remove(id);
-        return "User with id " + id + " was deleted";
+        return metrics.deleteById.record(() -> change(() -> {
+            synchronized (userIdLock(id)) {
+                User currentUser = users.remove(id);
+                if (currentUser == null) {
+                    metrics.userNotFound.increment();
+                    throw new UserNotFoundException(id);
+                }
+                userIds.remove(id);
+                userNameIndex.remove(id, currentUser.getName());
+                unindexContacts(currentUser);
+                listeners.forEach(it -> it.userDeleted(currentUser));
+                return "User with id " + id + " was deleted";
+            }
+        }));
     }
 
     /**
      * Method delete all users (telephone book owners) from telephone book owners map.
+     * No other change runs concurrently with it, so listeners see deletion of all users
+     * in the same order with other changes as it is applied.
      *
      * @return String - message that all users (telephone book owners) were deleted
      */
     public String deleteAll() {
-        users.clear();
-        return "All contacts were deleted";
+        return metrics.deleteAll.record(() -> exclusiveChange(() -> {
+            users.clear();
+            userIds.clear();
+            userNameIndex.clear();
+            reversePhoneIndex.clear();
+            metrics.allBooksDeleted();
+            listeners.forEach(UsersRepositoryListener::allUsersDeleted);
+            return "All contacts were deleted";
+        }));
     }
 
     /**
      * Method for get all users (telephone book owners) with theirs contacts.
      *
-     * @return Map<Long id, User user> - all users in the repository
+     * @return Map<Long id, User user> - read-only weakly consistent view of all users in the repository
      */
     public Map<Long, User> findAll() {
-        return Collections.unmodifiableMap(users);
+        return users.asMap();
+    }
+
+    /**
+     * Method for get one page of users (telephone book owners) ordered by id.
+     *
+     * @param afterId - id of the last user from previous page, null for the first page
+     * @param limit   - max users count on page
+     * @return Page<User> - users with id greater than afterId
+     */
+    public Page<User> findPage(Long afterId, int limit) {
+        return Page.of(iterateAll(afterId), limit, User::getId);
+    }
+
+    /**
+     * Method for iterate all users (telephone book owners) ordered by id without copying users map.
+     * Iterator is weakly consistent: it reflects some of modifications made after its creation.
+     *
+     * @param afterId - iteration starts after user with this id, null to start from the first user
+     * @return Iterator<User> - users iterator
+     */
+    public Iterator<User> iterateAll(Long afterId) {
+        PrimitiveIterator.OfLong ids = userIds.iterator(afterId == null ? -1 : afterId);
+        Stream<User> orderedUsers = StreamSupport.longStream(
+                Spliterators.spliteratorUnknownSize(ids, Spliterator.ORDERED), false)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull);
+        return orderedUsers.iterator();
     }
 
     /**
@@ -77,7 +232,35 @@ public class UsersRepository {
      * @return Optional<User user> - user in repository with appropriate id
      */
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return metrics.findById.record(() -> {
+            User user = users.get(id);
+            (user != null ? metrics.findByIdHits : metrics.findByIdMisses).increment();
+            return Optional.ofNullable(user);
+        });
+    }
+
+    /**
+     * Method for get many users (telephone book owners) by ids in one pass.
+     * Repeated ids are answered once, null ids are ignored.
+     *
+     * @param ids - ids for get users
+     * @return BatchResult<User> - found users and ids of not found users in request order
+     */
+    public BatchResult<User> findAllById(Collection<Long> ids) {
+        return metrics.findAllById.record(() -> {
+            BatchResult<User> result = new BatchResult<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                if (id != null) {
+                    User user = users.get(id);
+                    if (user != null) {
+                        result.getFound().add(user);
+                    } else {
+                        result.getMissing().add(id);
+                    }
+                }
+            }
+            return result;
+        });
     }
 
     /**
@@ -88,23 +271,69 @@ public class UsersRepository {
      * @return User - updated user
      */
     public User updateUserInfo(Long id, User user) {
-        User currentUser = getCurrentUser(id);
-        currentUser.setName(user.getName());
-        return currentUser;
+        return updateUserName(id, user.getName());
+    }
+
+    /**
+     * Method updates user name, used when only new name is known (e.g. on log replay).
+     *
+     * @param id   - id for user to update
+     * @param name - new user name
+     * @return User - updated user
+     */
+    public User updateUserName(Long id, String name) {
+        return metrics.updateUserInfo.record(() -> change(() -> {
+            User currentUser = getCurrentUser(id);
+            synchronized (currentUser) {
+                String oldName = currentUser.getName();
+                currentUser.setName(name);
+                userNameIndex.update(id, oldName, name);
+                listeners.forEach(it -> it.userInfoUpdated(currentUser));
+            }
+            return currentUser;
+        }));
     }
 
     /**
      * Method search user by substring of user name.
+     * Only candidates from user name trigram index are checked, not the whole users map.
+     * Results are cached until any user is changed, search of all users is not cached.
      * If users cannot be found then return empty list.
      *
      * @param userName - part of user name
      * @return List<User> - founded users list
      */
     public List<User> searchUsers(String userName) {
-        return users.values()
-                .stream()
-                .filter(it -> it.getName().toUpperCase().contains(userName.toUpperCase()))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        String query = userNameIndex.normalize(userName);
+        List<User> foundUsers;
+        int candidatesCount;
+        if (query.isEmpty()) {
+            foundUsers = new ArrayList<>(users.values());
+            candidatesCount = foundUsers.size();
+        } else {
+            long generation = searchCache.usersGeneration();
+            SearchResult<User> result = searchCache.findUsers(generation, query);
+            if (result != null) {
+                foundUsers = result.getItems();
+                candidatesCount = 0;
+            } else {
+                long[] candidates = userNameIndex.candidates(query);
+                foundUsers = LongStream.of(candidates)
+                        .mapToObj(users::get)
+                        .filter(it -> it != null && userNameIndex.normalize(it.getName()).contains(query))
+                        .collect(Collectors.toList());
+                candidatesCount = candidates.length;
+                foundUsers = searchCache.putUsers(generation, query, new SearchResult<>(foundUsers, candidatesCount))
+                        .getItems();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        metrics.searchUsers.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        metrics.searchUsersCandidates.record(candidatesCount);
+        metrics.searchUsersResults.record(foundUsers.size());
+        slowOperationLog.record("searchUsers", userName, null, candidatesCount, foundUsers.size(), elapsedNanos);
+        return foundUsers;
     }
 
     /**
@@ -116,7 +345,32 @@ public class UsersRepository {
      * @return Map<Long, Contact> - all user's contacts
      */
     public Map<Long, Contact> findAllUserContacts(Long userId) {
-        return getCurrentUser(userId).getContacts();
+        return metrics.findAllUserContacts.record(() -> getCurrentUser(userId).getContacts());
+    }
+
+    /**
+     * Method gets one page of user's contacts ordered by contact id.
+     * If cannot find user using userId then UserNotFoundException throws.
+     *
+     * @param userId  - id for user which contacts must be get
+     * @param afterId - id of the last contact from previous page, null for the first page
+     * @param limit   - max contacts count on page
+     * @return Page<Contact> - contacts with id greater than afterId
+     */
+    public Page<Contact> findUserContactsPage(Long userId, Long afterId, int limit) {
+        return Page.of(getCurrentUser(userId).iterateContacts(afterId), limit, Contact::getId);
+    }
+
+    /**
+     * Method for iterate all user's contacts ordered by contact id without copying.
+     * If cannot find user using userId then UserNotFoundException throws.
+     *
+     * @param userId  - id for user which contacts must be get
+     * @param afterId - iteration starts after contact with this id, null to start from the first contact
+     * @return Iterator<Contact> - weakly consistent contacts iterator
+     */
+    public Iterator<Contact> iterateUserContacts(Long userId, Long afterId) {
+        return getCurrentUser(userId).iterateContacts(afterId);
     }
 
     /**
@@ -128,7 +382,34 @@ public class UsersRepository {
      * @return Optional<Contact> - founded contact
      */
     public Optional<Contact> findUserContactByContactId(Long userId, Long contactId) {
-        return getCurrentUser(userId).getContactById(contactId);
+        return metrics.findUserContact.record(() -> getCurrentUser(userId).getContactById(contactId));
+    }
+
+    /**
+     * Method get many user's contacts by contact ids in one pass.
+     * Repeated ids are answered once, null ids are ignored.
+     * If cannot find user using userId then UserNotFoundException throws.
+     *
+     * @param userId     - id for user which contacts must be get
+     * @param contactIds - contact ids which must be found
+     * @return BatchResult<Contact> - found contacts and ids of not found contacts in request order
+     */
+    public BatchResult<Contact> findUserContactsByIds(Long userId, Collection<Long> contactIds) {
+        return metrics.findUserContacts.record(() -> {
+            User currentUser = getCurrentUser(userId);
+            BatchResult<Contact> result = new BatchResult<>();
+            for (Long contactId : new LinkedHashSet<>(contactIds)) {
+                if (contactId != null) {
+                    Optional<Contact> contact = currentUser.getContactById(contactId);
+                    if (contact.isPresent()) {
+                        result.getFound().add(contact.get());
+                    } else {
+                        result.getMissing().add(contactId);
+                    }
+                }
+            }
+            return result;
+        });
     }
 
     /**
@@ -140,7 +421,28 @@ public class UsersRepository {
      * @return Contact - added contact
      */
     public Contact addContact(Long userId, Contact newContact) {
-        return getCurrentUser(userId).addContact(newContact);
+        return metrics.addContact.record(() ->
+                change(() -> getCurrentUser(userId).addContact(newContact, contactListener(userId))));
+    }
+
+    /**
+     * Method add batch of new contacts to user's telephone book.
+     * If cannot find user using userId then UserNotFoundException throws.
+     *
+     * @param userId      - id for user to which telephone book contacts must be added
+     * @param newContacts - contacts to be added
+     * @return List<Contact> - added contacts in the same order
+     */
+    public List<Contact> addContacts(Long userId, List<Contact> newContacts) {
+        return metrics.addContacts.record(() -> change(() -> {
+            User currentUser = getCurrentUser(userId);
+            ContactChangeListener listener = contactListener(userId);
+            List<Contact> addedContacts = new ArrayList<>(newContacts.size());
+            for (Contact contact : newContacts) {
+                addedContacts.add(currentUser.addContact(contact, listener));
+            }
+            return addedContacts;
+        }));
     }
 
     /**
@@ -152,14 +454,14 @@ public class UsersRepository {
      * @return String - message that contact was deleted
      */
     public String deleteContactByContactId(Long userId, Long contactId) {
-        User currentUser = getCurrentUser(userId);
-        Optional<Contact> currentContact = currentUser.getContactById(contactId);
-        if (currentContact.isPresent()) {
-            currentUser.deleteContactById(contactId);
-            return "Contact with id " + contactId + " was deleted";
-        } else {
-            throw new ContactNotFoundException(contactId);
-        }
+        return metrics.deleteContact.record(() -> change(() -> {
+            Optional<Contact> deletedContact = getCurrentUser(userId).deleteContactById(contactId, contactListener(userId));
+            if (deletedContact.isPresent()) {
+                return "Contact with id " + contactId + " was deleted";
+            } else {
+                throw new ContactNotFoundException(contactId);
+            }
+        }));
     }
 
     /**
@@ -170,8 +472,10 @@ public class UsersRepository {
      * @return String - message that all contacts were deleted
      */
     public String deleteAllContacts(Long userId) {
-        getCurrentUser(userId).deleteAllContacts();
-        return "All contacts were deleted";
+        return metrics.deleteAllContacts.record(() -> change(() -> {
+            getCurrentUser(userId).deleteAllContacts(contactListener(userId));
+            return "All contacts were deleted";
+        }));
     }
 
     /**
@@ -184,11 +488,37 @@ public class UsersRepository {
      * @return Contact - updated contact
      */
     public Contact updateContact(Long userId, Long contactId, Contact newContact) {
-        return getCurrentUser(userId).updateContact(contactId, newContact);
+        return metrics.updateContact.record(() ->
+                change(() -> getCurrentUser(userId).updateContact(contactId, newContact, contactListener(userId))));
+    }
+
+    /**
+     * Method applies batch of contact operations to user's telephone book atomically:
+     * no other change of the telephone book runs concurrently, either all operations are applied or none.
+     * Readers are not isolated and may see part of batch, see User.applyContactOperations.
+     * If cannot find user using userId then UserNotFoundException throws.
+     * If cannot find contact of UPDATE or DELETE then ContactNotFoundException throws.
+     *
+     * @param userId     - id for user which telephone book must be changed
+     * @param operations - operations in order of applying
+     * @return List<Contact> - result contact of every operation, deleted contact for DELETE
+     */
+    public List<Contact> applyContactOperations(Long userId, List<ContactOperation> operations) {
+        return metrics.applyContactOperations.record(() ->
+                change(() -> getCurrentUser(userId).applyContactOperations(operations, changes -> {
+                    int sizeChange = 0;
+                    for (ContactChange change : changes) {
+                        sizeChange += indexContactChange(userId, change.getOldContact(), change.getNewContact());
+                    }
+                    bookSizeChanged(userId, sizeChange);
+                    listeners.forEach(it -> it.contactsChanged(userId, changes));
+                })));
     }
 
     /**
      * Method search contact by substring of phone number.
+     * Phone numbers are compared by digits using user's phone index.
+     * Results are cached until contacts of this user are changed.
      * If contact cannot be found then return empty list.
      * If cannot find user using userId then UserNotFoundException throws.
      *
@@ -197,18 +527,136 @@ public class UsersRepository {
      * @return List<Contact> - founded contacts
      */
     public List<Contact> searchContacts(Long userId, String contactPhone) {
-        Collection<Contact> allUserContact = getCurrentUser(userId)
-                .getContacts()
-                .values();
-        return allUserContact
-                .stream()
-                .filter(it -> it.getPhone().toUpperCase().contains(contactPhone.toUpperCase()))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        User currentUser = getCurrentUser(userId);
+        String query = PhoneNumbers.isDigitQuery(contactPhone)
+                ? PhoneNumbers.digits(contactPhone)
+                : "~" + contactPhone.toUpperCase();
+        long generation = searchCache.contactsGeneration(userId);
+        SearchResult<Contact> result = searchCache.findContacts(userId, generation, query);
+        int candidatesCount = 0;
+        if (result == null) {
+            result = currentUser.searchContacts(contactPhone);
+            candidatesCount = result.getCandidates();
+            result = searchCache.putContacts(userId, generation, query, result);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int resultsCount = result.getItems().size();
+        metrics.searchContacts.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        metrics.searchContactsCandidates.record(candidatesCount);
+        metrics.searchContactsResults.record(resultsCount);
+        slowOperationLog.record("searchContacts", contactPhone, userId, candidatesCount, resultsCount, elapsedNanos);
+        return result.getItems();
+    }
+
+    /**
+     * Method finds all telephone books where phone number is stored.
+     * Phone numbers are compared by digits only.
+     *
+     * @param phone - full phone number
+     * @return List<PhoneOwner> - users and contacts with this phone number
+     */
+    public List<PhoneOwner> findPhoneOwners(String phone) {
+        return metrics.findPhoneOwners.record(() -> reversePhoneIndex.find(phone));
+    }
+
+    /**
+     * Method runs change of repository between beforeChange and afterChange of listeners.
+     */
+    /**
+     * Method runs change under read lock of repository, changes run concurrently with each other.
+     * Lock is not reentrant, so change must not call other changes.
+     */
+    private <T> T change(Supplier<T> operation) {
+        listeners.forEach(UsersRepositoryListener::beforeChange);
+        try {
+            long stamp = changesLock.readLock();
+            try {
+                return operation.get();
+            } finally {
+                changesLock.unlockRead(stamp);
+            }
+        } finally {
+            listeners.forEach(UsersRepositoryListener::afterChange);
+        }
+    }
+
+    /**
+     * Method runs change under write lock of repository, no other change runs concurrently with it.
+     */
+    private <T> T exclusiveChange(Supplier<T> operation) {
+        listeners.forEach(UsersRepositoryListener::beforeChange);
+        try {
+            long stamp = changesLock.writeLock();
+            try {
+                return operation.get();
+            } finally {
+                changesLock.unlockWrite(stamp);
+            }
+        } finally {
+            listeners.forEach(UsersRepositoryListener::afterChange);
+        }
+    }
+
+    private ContactChangeListener contactListener(Long userId) {
+        return (oldContact, newContact) -> {
+            bookSizeChanged(userId, indexContactChange(userId, oldContact, newContact));
+            listeners.forEach(it -> it.contactChanged(userId, oldContact, newContact));
+        };
+    }
+
+    /**
+     * Method indexes contact change and returns change of contacts count: -1, 0 or 1.
+     */
+    private int indexContactChange(Long userId, Contact oldContact, Contact newContact) {
+        int sizeChange = 0;
+        if (oldContact != null) {
+            reversePhoneIndex.remove(userId, oldContact);
+            metrics.totalContacts.decrement();
+            sizeChange--;
+        }
+        if (newContact != null) {
+            reversePhoneIndex.add(userId, newContact);
+            metrics.totalContacts.increment();
+            sizeChange++;
+        }
+        return sizeChange;
+    }
+
+    private void bookSizeChanged(Long userId, int sizeChange) {
+        User user = users.get(userId);
+        if (sizeChange != 0 && user != null) {
+            int size = user.contactsCount();
+            metrics.bookSizeChanged(size - sizeChange, size);
+        }
+    }
+
+    private void indexContacts(User user) {
+        user.getContacts()
+                .values()
+                .forEach(it -> reversePhoneIndex.add(user.getId(), it));
+        metrics.totalContacts.add(user.contactsCount());
+        metrics.bookSizeChanged(0, user.contactsCount());
+    }
+
+    private void unindexContacts(User user) {
+        user.getContacts()
+                .values()
+                .forEach(it -> reversePhoneIndex.remove(user.getId(), it));
+        metrics.totalContacts.add(-user.contactsCount());
+        metrics.bookSizeChanged(user.contactsCount(), 0);
+    }
+
+    private Object userIdLock(Long userId) {
+        int hash = userId.hashCode();
+        hash ^= hash >>> 16;
+        return userIdLocks[hash & (USER_ID_LOCK_STRIPES - 1)];
     }
 
     private User getCurrentUser(Long userId) {
         User currentUser = users.get(userId);
         if (currentUser == null) {
+            metrics.userNotFound.increment();
             throw new UserNotFoundException(userId);
         }
         return currentUser;
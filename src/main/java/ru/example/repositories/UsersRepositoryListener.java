@@ -0,0 +1,84 @@
+package ru.example.repositories;
+
+import ru.example.models.Contact;
+import ru.example.models.ContactChange;
+import ru.example.models.User;
+
+import java.util.List;
+
+/**
+ * Listener for all changes made by UsersRepository.
+ * Contact changes are delivered under contact lock and user info changes under user lock,
+ * so changes of one entity are delivered in the order they were applied.
+ * Batch of contact changes is delivered under write lock of telephone book.
+ * Every change of repository is surrounded by beforeChange and afterChange calls in the changing thread
+ * without locks, so listener may reject change before data is changed or wait for something after it.
+ *
+ * @since 17.10.2026
+ */
+public interface UsersRepositoryListener {
+
+    /**
+     * Method is called before repository data is changed. Exception thrown by it rejects change.
+     */
+    default void beforeChange() {
+    }
+
+    /**
+     * Method is called after change of repository has finished, successfully or not, and its locks are released.
+     * Exception thrown by it is thrown to caller of change.
+     */
+    default void afterChange() {
+    }
+
+    /**
+     * Method is called after user was saved with all its contacts.
+     *
+     * @param user - saved user
+     */
+    default void userSaved(User user) {
+    }
+
+    /**
+     * Method is called after user info (without contacts) was updated.
+     *
+     * @param user - updated user
+     */
+    default void userInfoUpdated(User user) {
+    }
+
+    /**
+     * Method is called after user was deleted with its contacts.
+     *
+     * @param user - deleted user
+     */
+    default void userDeleted(User user) {
+    }
+
+    /**
+     * Method is called after all users were deleted.
+     */
+    default void allUsersDeleted() {
+    }
+
+    /**
+     * Method is called after contact was added, updated or deleted.
+     *
+     * @param userId     - telephone book owner id
+     * @param oldContact - contact before change, null for added contact
+     * @param newContact - contact after change, null for deleted contact
+     */
+    default void contactChanged(Long userId, Contact oldContact, Contact newContact) {
+    }
+
+    /**
+     * Method is called after batch of contact changes was applied atomically.
+     * By default changes are delivered one by one to contactChanged.
+     *
+     * @param userId  - telephone book owner id
+     * @param changes - changes in the order they were applied
+     */
+    default void contactsChanged(Long userId, List<ContactChange> changes) {
+        changes.forEach(it -> contactChanged(userId, it.getOldContact(), it.getNewContact()));
+    }
+}
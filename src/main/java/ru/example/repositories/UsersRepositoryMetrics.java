@@ -0,0 +1,152 @@
+package ru.example.repositories;
+
+import io.micrometer.core.instrument.*;
+import ru.example.collections.ConcurrentLongObjectMap;
+import ru.example.models.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meters of UsersRepository.
+ * Timer "telephonebook.repository" is tagged by operation, counters and summaries are created once,
+ * so recording does not look up meters on hot path.
+ * Total contacts count and largest book size are maintained on every change, so gauge read does not scan users.
+ * Largest book size only grows on changes: when the largest book shrinks, it is recalculated on next gauge read.
+ *
+ * @since 17.10.2026
+ */
+class UsersRepositoryMetrics {
+    private static final String OPERATION_TIMER = "telephonebook.repository";
+
+    final Timer save;
+    final Timer saveAll;
+    final Timer deleteById;
+    final Timer deleteAll;
+    final Timer findById;
+    final Timer findAllById;
+    final Timer updateUserInfo;
+    final Timer searchUsers;
+    final Timer findAllUserContacts;
+    final Timer findUserContact;
+    final Timer findUserContacts;
+    final Timer addContact;
+    final Timer addContacts;
+    final Timer deleteContact;
+    final Timer deleteAllContacts;
+    final Timer updateContact;
+    final Timer applyContactOperations;
+    final Timer searchContacts;
+    final Timer findPhoneOwners;
+    final Counter findByIdHits;
+    final Counter findByIdMisses;
+    final Counter userNotFound;
+    final DistributionSummary searchUsersCandidates;
+    final DistributionSummary searchUsersResults;
+    final DistributionSummary searchContactsCandidates;
+    final DistributionSummary searchContactsResults;
+    final LongAdder totalContacts = new LongAdder();
+    private final ConcurrentLongObjectMap<User> users;
+    private final AtomicInteger maxBookSize = new AtomicInteger();
+    private volatile boolean maxBookSizeStale;
+
+    UsersRepositoryMetrics(MeterRegistry registry, ConcurrentLongObjectMap<User> users) {
+        this.users = users;
+        save = timer(registry, "save");
+        saveAll = timer(registry, "saveAll");
+        deleteById = timer(registry, "deleteById");
+        deleteAll = timer(registry, "deleteAll");
+        findById = timer(registry, "findById");
+        findAllById = timer(registry, "findAllById");
+        updateUserInfo = timer(registry, "updateUserInfo");
+        searchUsers = timer(registry, "searchUsers");
+        findAllUserContacts = timer(registry, "findAllUserContacts");
+        findUserContact = timer(registry, "findUserContact");
+        findUserContacts = timer(registry, "findUserContacts");
+        addContact = timer(registry, "addContact");
+        addContacts = timer(registry, "addContacts");
+        deleteContact = timer(registry, "deleteContact");
+        deleteAllContacts = timer(registry, "deleteAllContacts");
+        updateContact = timer(registry, "updateContact");
+        applyContactOperations = timer(registry, "applyContactOperations");
+        searchContacts = timer(registry, "searchContacts");
+        findPhoneOwners = timer(registry, "findPhoneOwners");
+        findByIdHits = Counter.builder("telephonebook.repository.find")
+                .description("Users lookups by id")
+                .tag("result", "hit")
+                .register(registry);
+        findByIdMisses = Counter.builder("telephonebook.repository.find")
+                .description("Users lookups by id")
+                .tag("result", "miss")
+                .register(registry);
+        userNotFound = Counter.builder("telephonebook.repository.user.not.found")
+                .description("Operations failed because user does not exist")
+                .register(registry);
+        searchUsersCandidates = DistributionSummary.builder("telephonebook.repository.search.candidates")
+                .description("Index candidates checked by search")
+                .tag("operation", "searchUsers")
+                .register(registry);
+        searchUsersResults = DistributionSummary.builder("telephonebook.repository.search.results")
+                .description("Found records count")
+                .tag("operation", "searchUsers")
+                .register(registry);
+        searchContactsCandidates = DistributionSummary.builder("telephonebook.repository.search.candidates")
+                .description("Index candidates checked by search")
+                .tag("operation", "searchContacts")
+                .register(registry);
+        searchContactsResults = DistributionSummary.builder("telephonebook.repository.search.results")
+                .description("Found records count")
+                .tag("operation", "searchContacts")
+                .register(registry);
+        Gauge.builder("telephonebook.users", users, ConcurrentLongObjectMap::size)
+                .description("Users count")
+                .register(registry);
+        Gauge.builder("telephonebook.contacts", totalContacts, LongAdder::sum)
+                .description("Contacts count in all telephone books")
+                .register(registry);
+        Gauge.builder("telephonebook.book.size.max", this, UsersRepositoryMetrics::maxBookSize)
+                .description("Contacts count in the largest telephone book")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("UsersRepository operations latency")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Method updates largest book size after contacts count of one book was changed.
+     *
+     * @param previousSize - contacts count before change
+     * @param size         - contacts count after change
+     */
+    void bookSizeChanged(int previousSize, int size) {
+        if (size > previousSize) {
+            if (size > maxBookSize.get()) {
+                maxBookSize.accumulateAndGet(size, Math::max);
+            }
+        } else if (size < previousSize && previousSize >= maxBookSize.get()) {
+            maxBookSizeStale = true;
+        }
+    }
+
+    void allBooksDeleted() {
+        totalContacts.reset();
+        maxBookSize.set(0);
+        maxBookSizeStale = false;
+    }
+
+    private double maxBookSize() {
+        if (maxBookSizeStale) {
+            maxBookSizeStale = false;
+            int maxSize = 0;
+            for (User user : users.values()) {
+                maxSize = Math.max(maxSize, user.contactsCount());
+            }
+            maxBookSize.set(maxSize);
+        }
+        return maxBookSize.get();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.example.search;
+
+import ru.example.collections.ConcurrentLongSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Inverted trigram index for substring search.
+ * Every indexed text is normalized and split into trigrams, each trigram keeps a posting set
+ * of primitive ids whose text contains it.
+ * Substrings of 1 and 2 characters are indexed too, so short query is answered by one posting.
+ * Index returns candidates only, caller must verify them against current data.
+ *
+ * @since 17.10.2026
+ */
+public class NGramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final ConcurrentMap<String, ConcurrentLongSet> postings = new ConcurrentHashMap<>();
+    private final UnaryOperator<String> normalizer;
+
+    public NGramIndex(UnaryOperator<String> normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Method normalizes text the same way as index does.
+     *
+     * @param text - text to normalize, may be null
+     * @return String - normalized text, empty string for null
+     */
+    public String normalize(String text) {
+        return text == null ? "" : normalizer.apply(text);
+    }
+
+    /**
+     * Method adds id to postings of all text trigrams.
+     *
+     * @param id   - indexed entity id, greater than 0
+     * @param text - indexed text
+     */
+    public void add(long id, String text) {
+        for (String gram : indexedGrams(normalize(text))) {
+            addPosting(gram, id);
+        }
+    }
+
+    /**
+     * Method removes id from postings of all text trigrams.
+     *
+     * @param id   - indexed entity id
+     * @param text - text that was indexed for id
+     */
+    public void remove(long id, String text) {
+        for (String gram : indexedGrams(normalize(text))) {
+            removePosting(gram, id);
+        }
+    }
+
+    /**
+     * Method reindexes id from old text to new one.
+     * New trigrams are added before stale ones are removed, so concurrent search never misses id.
+     *
+     * @param id      - indexed entity id
+     * @param oldText - text that was indexed for id
+     * @param newText - new text for id
+     */
+    public void update(long id, String oldText, String newText) {
+        Set<String> newGrams = indexedGrams(normalize(newText));
+        for (String gram : newGrams) {
+            addPosting(gram, id);
+        }
+        for (String gram : indexedGrams(normalize(oldText))) {
+            if (!newGrams.contains(gram)) {
+                removePosting(gram, id);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Method finds ids which texts may contain query.
+     * Queries shorter than trigram are answered by posting of the query itself.
+     * Empty query can't be answered by index, so it must be handled by caller.
+     *
+     * @param query - search query, not empty
+     * @return long[] - candidate ids
+     */
+    public long[] candidates(String query) {
+        String normalizedQuery = normalize(query);
+        Set<String> queryGrams = normalizedQuery.length() < GRAM_LENGTH
+                ? Collections.singleton(normalizedQuery)
+                : grams(normalizedQuery);
+        List<ConcurrentLongSet> queryPostings = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            ConcurrentLongSet ids = postings.get(gram);
+            if (ids == null || ids.isEmpty()) {
+                return new long[0];
+            }
+            queryPostings.add(ids);
+        }
+        queryPostings.sort(Comparator.comparingInt(ConcurrentLongSet::size));
+        ConcurrentLongSet smallest = queryPostings.get(0);
+        List<ConcurrentLongSet> others = queryPostings.subList(1, queryPostings.size());
+        long[][] result = {new long[Math.max(smallest.size(), 1)]};
+        int[] count = {0};
+        smallest.forEach(id -> {
+            for (ConcurrentLongSet other : others) {
+                if (!other.contains(id)) {
+                    return;
+                }
+            }
+            if (count[0] == result[0].length) {
+                result[0] = Arrays.copyOf(result[0], count[0] * 2);
+            }
+            result[0][count[0]++] = id;
+        });
+        return Arrays.copyOf(result[0], count[0]);
+    }
+
+    private void addPosting(String gram, long id) {
+        postings.compute(gram, (key, ids) -> {
+            ConcurrentLongSet result = ids == null ? new ConcurrentLongSet() : ids;
+            result.add(id);
+            return result;
+        });
+    }
+
+    private void removePosting(String gram, long id) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Method returns trigrams of text and its substrings shorter than trigram.
+     */
+    private static Set<String> indexedGrams(String normalizedText) {
+        Set<String> result = grams(normalizedText);
+        for (int length = 1; length < GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= normalizedText.length(); i++) {
+                result.add(normalizedText.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String normalizedText) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalizedText.length(); i++) {
+            result.add(normalizedText.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+}
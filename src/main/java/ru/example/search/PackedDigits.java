@@ -0,0 +1,90 @@
+package ru.example.search;
+
+/**
+ * Utility methods for phone digits packed to long as BCD nibbles.
+ * Lowest nibble keeps digits count, digit i is kept in nibble i + 1, so up to 15 digits fit to one long.
+ * Substring search compares nibbles directly, without creating strings.
+ *
+ * @since 17.10.2026
+ */
+public final class PackedDigits {
+    public static final int MAX_DIGITS = 15;
+    /**
+     * Value for phone numbers without digits representation: null or longer than MAX_DIGITS digits.
+     */
+    public static final long NOT_PACKED = -1L;
+
+    private PackedDigits() {
+    }
+
+    /**
+     * Method packs all digits of phone number, other characters are skipped.
+     *
+     * @param phone - phone number in any format, may be null
+     * @return long - packed digits or NOT_PACKED if phone is null or has too many digits
+     */
+    public static long pack(CharSequence phone) {
+        if (phone == null) {
+            return NOT_PACKED;
+        }
+        long packed = 0;
+        int count = 0;
+        for (int i = 0; i < phone.length(); i++) {
+            char current = phone.charAt(i);
+            if (current >= '0' && current <= '9') {
+                if (count == MAX_DIGITS) {
+                    return NOT_PACKED;
+                }
+                packed |= (long) (current - '0') << (4 * (count + 1));
+                count++;
+            }
+        }
+        return packed | count;
+    }
+
+    public static int length(long packed) {
+        return (int) (packed & 0xF);
+    }
+
+    public static int digit(long packed, int index) {
+        return (int) (packed >>> (4 * (index + 1))) & 0xF;
+    }
+
+    /**
+     * Method restores digits string.
+     *
+     * @param packed - packed digits
+     * @return String - digits
+     */
+    public static String unpack(long packed) {
+        char[] digits = new char[length(packed)];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = (char) ('0' + digit(packed, i));
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Method checks that packed digits contain packed query as substring.
+     *
+     * @param packed - packed phone digits
+     * @param query  - packed query digits
+     * @return true if query digits are substring of phone digits
+     */
+    public static boolean contains(long packed, long query) {
+        int length = length(packed);
+        int queryLength = length(query);
+        if (queryLength > length) {
+            return false;
+        }
+        long mask = (1L << (4 * queryLength)) - 1;
+        long queryDigits = query >>> 4;
+        long digits = packed >>> 4;
+        for (int start = 0; start <= length - queryLength; start++) {
+            if (((digits >>> (4 * start)) & mask) == queryDigits) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.example.search;
+
+/**
+ * Utility methods for phone numbers normalization.
+ *
+ * @since 17.10.2026
+ */
+public final class PhoneNumbers {
+    private static final String FORMATTING_CHARACTERS = " -+().";
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Method removes all non-digit characters from phone number.
+     *
+     * @param phone - phone number in any format, may be null
+     * @return String - only digits of phone number
+     */
+    public static String digits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char current = phone.charAt(i);
+            if (current >= '0' && current <= '9') {
+                result.append(current);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Method checks that search query is a phone number, possibly formatted.
+     * Such query can be searched by digits only, other queries are compared as plain strings.
+     *
+     * @param query - search query
+     * @return true if query contains digits and phone formatting characters only
+     */
+    public static boolean isDigitQuery(String query) {
+        boolean hasDigits = false;
+        for (int i = 0; i < query.length(); i++) {
+            char current = query.charAt(i);
+            if (current >= '0' && current <= '9') {
+                hasDigits = true;
+            } else if (FORMATTING_CHARACTERS.indexOf(current) < 0) {
+                return false;
+            }
+        }
+        return hasDigits;
+    }
+}
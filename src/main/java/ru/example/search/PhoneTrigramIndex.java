@@ -0,0 +1,137 @@
+package ru.example.search;
+
+import ru.example.collections.ConcurrentLongSet;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Inverted trigram index of phone digits.
+ * Digit trigram is a number from 0 to 999, so postings are kept in array by trigram instead of map,
+ * and every posting is a set of primitive ids: about 12 bytes per trigram of indexed phone,
+ * without map nodes of string trigrams.
+ * Only queries of at least 3 digits can be answered, shorter ones must be handled by caller.
+ * Index returns candidates only, caller must verify them against current data.
+ *
+ * @since 17.10.2026
+ */
+public class PhoneTrigramIndex {
+    public static final int GRAM_LENGTH = 3;
+    private static final int GRAMS = 1000;
+
+    private final AtomicReferenceArray<ConcurrentLongSet> postings = new AtomicReferenceArray<>(GRAMS);
+
+    /**
+     * Method adds id to postings of all phone trigrams.
+     *
+     * @param id    - indexed entity id
+     * @param phone - phone number in any format, may be null
+     */
+    public void add(long id, String phone) {
+        for (int gram : grams(PhoneNumbers.digits(phone))) {
+            posting(gram).add(id);
+        }
+    }
+
+    /**
+     * Method removes id from postings of all phone trigrams.
+     *
+     * @param id    - indexed entity id
+     * @param phone - phone number that was indexed for id
+     */
+    public void remove(long id, String phone) {
+        for (int gram : grams(PhoneNumbers.digits(phone))) {
+            ConcurrentLongSet ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Method reindexes id from old phone to new one.
+     * New trigrams are added before stale ones are removed, so concurrent search never misses id.
+     *
+     * @param id       - indexed entity id
+     * @param oldPhone - phone number that was indexed for id
+     * @param newPhone - new phone number for id
+     */
+    public void update(long id, String oldPhone, String newPhone) {
+        int[] newGrams = grams(PhoneNumbers.digits(newPhone));
+        for (int gram : newGrams) {
+            posting(gram).add(id);
+        }
+        for (int gram : grams(PhoneNumbers.digits(oldPhone))) {
+            ConcurrentLongSet ids = postings.get(gram);
+            if (ids != null && Arrays.binarySearch(newGrams, gram) < 0) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Method finds ids which phones may contain query digits.
+     *
+     * @param digits - query digits, at least GRAM_LENGTH of them
+     * @return long[] - candidate ids
+     */
+    public long[] candidates(String digits) {
+        if (digits.length() < GRAM_LENGTH) {
+            throw new IllegalArgumentException("Query must have at least " + GRAM_LENGTH + " digits");
+        }
+        int[] queryGrams = grams(digits);
+        ConcurrentLongSet[] queryPostings = new ConcurrentLongSet[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            queryPostings[i] = postings.get(queryGrams[i]);
+            if (queryPostings[i] == null || queryPostings[i].isEmpty()) {
+                return new long[0];
+            }
+        }
+        Arrays.sort(queryPostings, (first, second) -> Integer.compare(first.size(), second.size()));
+        long[][] result = {new long[Math.max(queryPostings[0].size(), 1)]};
+        int[] count = {0};
+        queryPostings[0].forEach(id -> {
+            for (int i = 1; i < queryPostings.length; i++) {
+                if (!queryPostings[i].contains(id)) {
+                    return;
+                }
+            }
+            if (count[0] == result[0].length) {
+                result[0] = Arrays.copyOf(result[0], count[0] * 2);
+            }
+            result[0][count[0]++] = id;
+        });
+        return Arrays.copyOf(result[0], count[0]);
+    }
+
+    private ConcurrentLongSet posting(int gram) {
+        ConcurrentLongSet ids = postings.get(gram);
+        if (ids == null) {
+            postings.compareAndSet(gram, null, new ConcurrentLongSet());
+            ids = postings.get(gram);
+        }
+        return ids;
+    }
+
+    /**
+     * Method returns sorted distinct trigrams of digits.
+     */
+    private static int[] grams(String digits) {
+        if (digits.length() < GRAM_LENGTH) {
+            return new int[0];
+        }
+        int[] result = new int[digits.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (digits.charAt(i) - '0') * 100 + (digits.charAt(i + 1) - '0') * 10
+                    + digits.charAt(i + 2) - '0';
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+}
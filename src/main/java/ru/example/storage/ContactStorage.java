@@ -0,0 +1,83 @@
+package ru.example.storage;
+
+import ru.example.models.Contact;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Storage of contacts of one telephone book ordered by contact id.
+ * Storage is thread-safe, but changes of one contact must be serialized by caller (User uses contact locks).
+ * Two storages are equal if they have equal contacts, regardless of storage type.
+ *
+ * @since 17.10.2026
+ */
+public abstract class ContactStorage {
+
+    /**
+     * Method gets contact by id.
+     *
+     * @param contactId - contact id
+     * @return Contact - contact or null if it is absent
+     */
+    public abstract Contact get(Long contactId);
+
+    /**
+     * Method puts contact, contact with the same id is replaced.
+     *
+     * @param contact - contact to store
+     * @return Contact - replaced contact or null
+     */
+    public abstract Contact put(Contact contact);
+
+    /**
+     * Method checks that contact info can be stored, storage may limit size of strings.
+     * If contact info can't be stored then IllegalArgumentException throws.
+     *
+     * @param name  - contact name
+     * @param phone - contact phone
+     */
+    public void checkContactInfo(String name, String phone) {
+    }
+
+    /**
+     * Method removes contact by id.
+     *
+     * @param contactId - contact id
+     * @return Contact - removed contact or null if it is absent
+     */
+    public abstract Contact remove(Long contactId);
+
+    /**
+     * Method for iterate contacts ordered by id.
+     * Iterator is weakly consistent: it reflects some of modifications made after its creation.
+     *
+     * @param afterId - iteration starts after contact with this id, null to start from the first contact
+     * @return Iterator<Contact> - contacts iterator
+     */
+    public abstract Iterator<Contact> iterator(Long afterId);
+
+    public abstract int size();
+
+    /**
+     * Method returns read-only view of contacts by id.
+     *
+     * @return Map<Long, Contact> - weakly consistent view ordered by id
+     */
+    public abstract Map<Long, Contact> asMap();
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ContactStorage && asMap().equals(((ContactStorage) other).asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.example.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import ru.example.models.User;
+
+/**
+ * Configuration of contact storage type by "telephonebook.contacts.storage" property:
+ * "heap" - contacts objects on heap, "off-heap" - contacts in off-heap columnar arena.
+ * Storage type must be chosen before users are created, so UsersRepository depends on this configuration.
+ *
+ * @since 17.10.2026
+ */
+@Configuration
+@Slf4j
+public class ContactStorageConfiguration {
+    public static final String HEAP = "heap";
+    public static final String OFF_HEAP = "off-heap";
+
+    private final String storage;
+    private final OffHeapContactArena arena;
+
+    public ContactStorageConfiguration(@Value("${telephonebook.contacts.storage:heap}") String storage) {
+        this.storage = storage;
+        if (HEAP.equals(storage)) {
+            arena = null;
+            User.useContactStorage(HeapContactStorage::new);
+        } else if (OFF_HEAP.equals(storage)) {
+            arena = new OffHeapContactArena();
+            User.useContactStorage(() -> new OffHeapContactStorage(arena));
+        } else {
+            throw new IllegalArgumentException("Unknown contact storage " + storage
+                    + ", expected " + HEAP + " or " + OFF_HEAP);
+        }
+        log.info("Contacts are stored in " + storage + " storage");
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    /**
+     * Method returns off-heap arena if off-heap storage is used.
+     *
+     * @return OffHeapContactArena - arena or null for heap storage
+     */
+    public OffHeapContactArena getArena() {
+        return arena;
+    }
+}
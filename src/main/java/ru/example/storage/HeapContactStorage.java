@@ -0,0 +1,49 @@
+package ru.example.storage;
+
+import ru.example.models.Contact;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Contact storage on heap: contacts objects in concurrent skip list map ordered by id.
+ *
+ * @since 17.10.2026
+ */
+public class HeapContactStorage extends ContactStorage {
+    private final NavigableMap<Long, Contact> contacts = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Contact get(Long contactId) {
+        return contacts.get(contactId);
+    }
+
+    @Override
+    public Contact put(Contact contact) {
+        return contacts.put(contact.getId(), contact);
+    }
+
+    @Override
+    public Contact remove(Long contactId) {
+        return contacts.remove(contactId);
+    }
+
+    @Override
+    public Iterator<Contact> iterator(Long afterId) {
+        Map<Long, Contact> orderedContacts = afterId == null ? contacts : contacts.tailMap(afterId, false);
+        return orderedContacts.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return contacts.size();
+    }
+
+    @Override
+    public Map<Long, Contact> asMap() {
+        return Collections.unmodifiableMap(contacts);
+    }
+}
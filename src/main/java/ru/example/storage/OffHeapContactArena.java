@@ -0,0 +1,287 @@
+package ru.example.storage;
+
+import ru.example.models.Contact;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Off-heap columnar storage of contacts shared by all telephone books.
+ * Contact is a row number: id and version columns keep contact id and version, name and phone columns keep offsets
+ * of strings in byte arena, string is [int UTF-8 bytes length or -1 for null][UTF-8 bytes].
+ * Columns and arena are direct buffers allocated by chunks, so they grow without copying.
+ * Rows of removed contacts are reused. String bytes are allocated by size classes (multiples of 8 bytes
+ * up to 256 bytes, then powers of two), bytes of replaced and removed strings go to free list of their class
+ * and are reused by the next string of that class, so arena grows with live contacts, not with updates.
+ * Rows of telephone book are freed when its storage becomes unreachable.
+ * All writes are serialized by arena lock; rows must be read under lock of storage that owns them.
+ *
+ * @since 17.10.2026
+ */
+public class OffHeapContactArena {
+    private static final int ROWS_CHUNK_BITS = 16;
+    private static final int ROWS_CHUNK_SIZE = 1 << ROWS_CHUNK_BITS;
+    private static final int BYTES_CHUNK_BITS = 24;
+    private static final int BYTES_CHUNK_SIZE = 1 << BYTES_CHUNK_BITS;
+    private static final long NULL_STRING = -1;
+    private static final int SMALL_CLASSES = 32;
+    private static final int SMALL_CLASS_STEP_BITS = 3;
+    private static final int SMALL_CLASS_LIMIT = SMALL_CLASSES << SMALL_CLASS_STEP_BITS;
+    private static final int FIRST_LARGE_CLASS_BITS = 9;
+    private static final int SIZE_CLASSES = SMALL_CLASSES + BYTES_CHUNK_BITS - FIRST_LARGE_CLASS_BITS + 1;
+
+    private final Object lock = new Object();
+    private final ReferenceQueue<OffHeapContactStorage> releasedStorages = new ReferenceQueue<>();
+    private final Set<Reference<OffHeapContactStorage>> storages = ConcurrentHashMap.newKeySet();
+    private volatile LongBuffer[] idColumn = new LongBuffer[0];
+    private volatile LongBuffer[] nameColumn = new LongBuffer[0];
+    private volatile LongBuffer[] phoneColumn = new LongBuffer[0];
+    private volatile LongBuffer[] versionColumn = new LongBuffer[0];
+    private volatile ByteBuffer[] bytes = new ByteBuffer[0];
+    private long nextRow;
+    private long[] freeRows = new long[16];
+    private int freeRowsCount;
+    private long nextByte;
+    private final long[][] freeStrings = new long[SIZE_CLASSES][];
+    private final int[] freeStringsCount = new int[SIZE_CLASSES];
+    private volatile long liveRows;
+    private volatile long garbageBytes;
+
+    /**
+     * Method registers storage, its rows are freed after storage becomes unreachable.
+     *
+     * @param storage - storage of one telephone book
+     * @param rows    - rows of storage, must not reference storage
+     */
+    void register(OffHeapContactStorage storage, OffHeapContactStorage.Rows rows) {
+        storages.add(new StorageReference(storage, releasedStorages, rows));
+    }
+
+    long allocateRow(Contact contact) {
+        synchronized (lock) {
+            freeReleasedStorages();
+            long name = writeString(contact.getName());
+            long phone = writeString(contact.getPhone(), name);
+            long row = freeRowsCount > 0 ? freeRows[--freeRowsCount] : nextRow++;
+            int chunk = (int) (row >>> ROWS_CHUNK_BITS);
+            if (chunk == idColumn.length) {
+                idColumn = addChunk(idColumn);
+                nameColumn = addChunk(nameColumn);
+                phoneColumn = addChunk(phoneColumn);
+                versionColumn = addChunk(versionColumn);
+            }
+            int index = (int) row & (ROWS_CHUNK_SIZE - 1);
+            idColumn[chunk].put(index, contact.getId());
+            nameColumn[chunk].put(index, name);
+            phoneColumn[chunk].put(index, phone);
+            versionColumn[chunk].put(index, contact.version());
+            liveRows++;
+            return row;
+        }
+    }
+
+    void updateRow(long row, Contact contact) {
+        synchronized (lock) {
+            int chunk = (int) (row >>> ROWS_CHUNK_BITS);
+            int index = (int) row & (ROWS_CHUNK_SIZE - 1);
+            long name = writeString(contact.getName());
+            long phone = writeString(contact.getPhone(), name);
+            freeString(nameColumn[chunk].get(index));
+            freeString(phoneColumn[chunk].get(index));
+            nameColumn[chunk].put(index, name);
+            phoneColumn[chunk].put(index, phone);
+            versionColumn[chunk].put(index, contact.version());
+        }
+    }
+
+    void freeRow(long row) {
+        synchronized (lock) {
+            int chunk = (int) (row >>> ROWS_CHUNK_BITS);
+            int index = (int) row & (ROWS_CHUNK_SIZE - 1);
+            freeString(nameColumn[chunk].get(index));
+            freeString(phoneColumn[chunk].get(index));
+            if (freeRowsCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeRowsCount * 2);
+            }
+            freeRows[freeRowsCount++] = row;
+            liveRows--;
+        }
+    }
+
+    /**
+     * Method checks that string fits to arena, string that doesn't fit can't be written.
+     * If string is too long then IllegalArgumentException throws.
+     */
+    void checkString(String value) {
+        if (value != null && Integer.BYTES + value.length() * 3 > BYTES_CHUNK_SIZE) {
+            checkSize(value.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    Contact read(long row) {
+        int chunk = (int) (row >>> ROWS_CHUNK_BITS);
+        int index = (int) row & (ROWS_CHUNK_SIZE - 1);
+        return Contact.copyOf(idColumn[chunk].get(index),
+                readString(nameColumn[chunk].get(index)), readString(phoneColumn[chunk].get(index)),
+                versionColumn[chunk].get(index));
+    }
+
+    /**
+     * Method returns contacts count in all telephone books.
+     *
+     * @return long - stored contacts count
+     */
+    public long liveRows() {
+        return liveRows;
+    }
+
+    /**
+     * Method returns off-heap memory allocated by arena.
+     *
+     * @return long - allocated bytes
+     */
+    public long allocatedBytes() {
+        return (long) idColumn.length * ROWS_CHUNK_SIZE * Long.BYTES * 4 + (long) bytes.length * BYTES_CHUNK_SIZE;
+    }
+
+    /**
+     * Method returns arena bytes that are not used: freed strings not reused yet and unused chunk tails.
+     *
+     * @return long - unused bytes
+     */
+    public long garbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * Method writes the second string of row, the first one is freed if string cannot be written,
+     * so failed write leaves arena and row unchanged.
+     */
+    private long writeString(String value, long firstString) {
+        try {
+            return writeString(value);
+        } catch (IllegalArgumentException e) {
+            freeString(firstString);
+            throw e;
+        }
+    }
+
+    private static void checkSize(int stringBytes) {
+        if (Integer.BYTES + stringBytes > BYTES_CHUNK_SIZE) {
+            throw new IllegalArgumentException("String is too long for off-heap storage: " + stringBytes + " bytes");
+        }
+    }
+
+    private long writeString(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        checkSize(valueBytes.length);
+        int size = Integer.BYTES + valueBytes.length;
+        int sizeClass = sizeClass(size);
+        long offset;
+        if (freeStringsCount[sizeClass] > 0) {
+            offset = freeStrings[sizeClass][--freeStringsCount[sizeClass]];
+            garbageBytes -= classSize(sizeClass);
+        } else {
+            offset = allocateBytes(classSize(sizeClass));
+        }
+        ByteBuffer chunk = bytes[(int) (offset >>> BYTES_CHUNK_BITS)];
+        int position = (int) offset & (BYTES_CHUNK_SIZE - 1);
+        chunk.putInt(position, valueBytes.length);
+        for (int i = 0; i < valueBytes.length; i++) {
+            chunk.put(position + Integer.BYTES + i, valueBytes[i]);
+        }
+        return offset;
+    }
+
+    private long allocateBytes(int size) {
+        long allocatedEnd = (long) bytes.length << BYTES_CHUNK_BITS;
+        if (nextByte + size > allocatedEnd) {
+            garbageBytes += allocatedEnd - nextByte;
+            nextByte = allocatedEnd;
+            ByteBuffer[] grown = Arrays.copyOf(bytes, bytes.length + 1);
+            grown[bytes.length] = ByteBuffer.allocateDirect(BYTES_CHUNK_SIZE);
+            bytes = grown;
+        }
+        long offset = nextByte;
+        nextByte += size;
+        return offset;
+    }
+
+    private void freeString(long offset) {
+        if (offset == NULL_STRING) {
+            return;
+        }
+        ByteBuffer chunk = bytes[(int) (offset >>> BYTES_CHUNK_BITS)];
+        int sizeClass = sizeClass(Integer.BYTES + chunk.getInt((int) offset & (BYTES_CHUNK_SIZE - 1)));
+        long[] free = freeStrings[sizeClass];
+        if (free == null) {
+            free = freeStrings[sizeClass] = new long[16];
+        } else if (freeStringsCount[sizeClass] == free.length) {
+            free = freeStrings[sizeClass] = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeStringsCount[sizeClass]++] = offset;
+        garbageBytes += classSize(sizeClass);
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= SMALL_CLASS_LIMIT) {
+            return (size - 1) >>> SMALL_CLASS_STEP_BITS;
+        }
+        return SMALL_CLASSES + Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - FIRST_LARGE_CLASS_BITS;
+    }
+
+    private static int classSize(int sizeClass) {
+        return sizeClass < SMALL_CLASSES ? (sizeClass + 1) << SMALL_CLASS_STEP_BITS
+                : 1 << (sizeClass - SMALL_CLASSES + FIRST_LARGE_CLASS_BITS);
+    }
+
+    private String readString(long offset) {
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        ByteBuffer chunk = bytes[(int) (offset >>> BYTES_CHUNK_BITS)];
+        int position = (int) offset & (BYTES_CHUNK_SIZE - 1);
+        byte[] valueBytes = new byte[chunk.getInt(position)];
+        for (int i = 0; i < valueBytes.length; i++) {
+            valueBytes[i] = chunk.get(position + Integer.BYTES + i);
+        }
+        return new String(valueBytes, StandardCharsets.UTF_8);
+    }
+
+    private void freeReleasedStorages() {
+        Reference<? extends OffHeapContactStorage> reference;
+        while ((reference = releasedStorages.poll()) != null) {
+            storages.remove(reference);
+            OffHeapContactStorage.Rows rows = ((StorageReference) reference).rows;
+            for (int i = 0; i < rows.size; i++) {
+                freeRow(rows.rows[i]);
+            }
+        }
+    }
+
+    private static LongBuffer[] addChunk(LongBuffer[] column) {
+        LongBuffer[] grown = Arrays.copyOf(column, column.length + 1);
+        grown[column.length] = ByteBuffer.allocateDirect(ROWS_CHUNK_SIZE * Long.BYTES).asLongBuffer();
+        return grown;
+    }
+
+    private static final class StorageReference extends PhantomReference<OffHeapContactStorage> {
+        private final OffHeapContactStorage.Rows rows;
+
+        StorageReference(OffHeapContactStorage storage, ReferenceQueue<OffHeapContactStorage> queue,
+                         OffHeapContactStorage.Rows rows) {
+            super(storage, queue);
+            this.rows = rows;
+        }
+    }
+}
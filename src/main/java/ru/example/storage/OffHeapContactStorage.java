@@ -0,0 +1,202 @@
+package ru.example.storage;
+
+import ru.example.models.Contact;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contact storage of one telephone book in off-heap arena.
+ * Telephone book keeps only sorted arrays of contact ids and arena rows,
+ * Contact objects are created from arena on every read and are not kept.
+ * Contact ids are mostly increasing, so adding contact is usually appending to arrays.
+ *
+ * @since 17.10.2026
+ */
+public class OffHeapContactStorage extends ContactStorage {
+    private final OffHeapContactArena arena;
+    private final Rows rows = new Rows();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OffHeapContactStorage(OffHeapContactArena arena) {
+        this.arena = arena;
+        arena.register(this, rows);
+    }
+
+    @Override
+    public Contact get(Long contactId) {
+        lock.readLock().lock();
+        try {
+            int index = rows.indexOf(contactId);
+            return index >= 0 ? arena.read(rows.rows[index]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Contact put(Contact contact) {
+        lock.writeLock().lock();
+        try {
+            int index = rows.indexOf(contact.getId());
+            if (index >= 0) {
+                Contact previousContact = arena.read(rows.rows[index]);
+                arena.updateRow(rows.rows[index], contact);
+                return previousContact;
+            }
+            rows.insert(-index - 1, contact.getId(), arena.allocateRow(contact));
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void checkContactInfo(String name, String phone) {
+        arena.checkString(name);
+        arena.checkString(phone);
+    }
+
+    @Override
+    public Contact remove(Long contactId) {
+        lock.writeLock().lock();
+        try {
+            int index = rows.indexOf(contactId);
+            if (index < 0) {
+                return null;
+            }
+            long row = rows.rows[index];
+            Contact removedContact = arena.read(row);
+            rows.delete(index);
+            arena.freeRow(row);
+            return removedContact;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Contact> iterator(Long afterId) {
+        return new Iterator<Contact>() {
+            private Contact next = nextAfter(afterId);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Contact next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Contact current = next;
+                next = nextAfter(current.getId());
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, Contact> asMap() {
+        return new AbstractMap<Long, Contact>() {
+            @Override
+            public Contact get(Object key) {
+                return key instanceof Long ? OffHeapContactStorage.this.get((Long) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public int size() {
+                return OffHeapContactStorage.this.size();
+            }
+
+            @Override
+            public Set<Entry<Long, Contact>> entrySet() {
+                return new AbstractSet<Entry<Long, Contact>>() {
+                    @Override
+                    public Iterator<Entry<Long, Contact>> iterator() {
+                        Iterator<Contact> contacts = OffHeapContactStorage.this.iterator(null);
+                        return new Iterator<Entry<Long, Contact>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return contacts.hasNext();
+                            }
+
+                            @Override
+                            public Entry<Long, Contact> next() {
+                                Contact contact = contacts.next();
+                                return new SimpleImmutableEntry<>(contact.getId(), contact);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return OffHeapContactStorage.this.size();
+                    }
+                };
+            }
+        };
+    }
+
+    private Contact nextAfter(Long afterId) {
+        lock.readLock().lock();
+        try {
+            int index = 0;
+            if (afterId != null) {
+                index = rows.indexOf(afterId);
+                index = index >= 0 ? index + 1 : -index - 1;
+            }
+            return index < rows.size ? arena.read(rows.rows[index]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sorted contact ids with arena rows. Arena frees rows by this object, so it must not reference storage.
+     */
+    static final class Rows {
+        long[] ids = new long[4];
+        long[] rows = new long[4];
+        int size;
+
+        int indexOf(long contactId) {
+            return Arrays.binarySearch(ids, 0, size, contactId);
+        }
+
+        void insert(int index, long contactId, long row) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(rows, index, rows, index + 1, size - index);
+            ids[index] = contactId;
+            rows[index] = row;
+            size++;
+        }
+
+        void delete(int index) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+            size--;
+        }
+    }
+}
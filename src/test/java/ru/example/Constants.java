@@ -19,5 +19,16 @@ public class Constants {
     public static final String USERS_URL = "/users/";
     public static final String CONTACTS_URL = "/contacts/";
     public static final String SEARCH_URL = "search/";
+    public static final String LOOKUP_URL = "/contacts/lookup";
     public static final String EMPTY_BODY = "{}";
+    public static final String NDJSON_TYPE = "application/x-ndjson";
+    public static final String CSV_TYPE = "text/csv";
+    public static final String IMPORT_URL = "import";
+    public static final String EXPORT_URL = "export";
+    public static final String BATCH_URL = "batch";
+    public static final String OPERATIONS_URL = "operations";
+    public static final String CHANGES_URL = "changes?since=";
+    public static final String PROMETHEUS_URL = "/actuator/prometheus";
+    public static final String SLOW_OPERATIONS_URL = "/actuator/slowoperations";
+    public static final String MEMORY_URL = "/actuator/memory";
 }
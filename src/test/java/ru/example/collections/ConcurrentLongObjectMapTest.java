@@ -0,0 +1,92 @@
+package ru.example.collections;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for ConcurrentLongObjectMap
+ *
+ * @since 17.10.2026
+ */
+class ConcurrentLongObjectMapTest {
+
+    @Test
+    void putGetRemove() {
+        ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<>();
+        Assert.assertNull(map.put(1, "one"));
+        Assert.assertEquals("one", map.put(1, "first"));
+        Assert.assertEquals("first", map.get(1));
+        Assert.assertNull(map.get(2));
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("first", map.remove(1));
+        Assert.assertNull(map.remove(1));
+        Assert.assertNull(map.get(1));
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(1, "again"));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("again", map.putIfAbsent(1, "other"));
+        Assert.assertNull(map.putIfAbsent(2, "two"));
+        Assert.assertEquals("two", map.get(2));
+    }
+
+    @Test
+    void zeroKeyIsReserved() {
+        ConcurrentLongObjectMap<String> map = new ConcurrentLongObjectMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "zero"));
+    }
+
+    @Test
+    void growAndIterate() {
+        ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (long key = 1; key <= 100_000; key++) {
+            map.put(key, key * 2);
+            expected.put(key, key * 2);
+        }
+        for (long key = 1; key <= 100_000; key += 3) {
+            map.remove(key);
+            expected.remove(key);
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(expected, map.asMap());
+        Assert.assertEquals(expected.size(), new ArrayList<>(map.values()).size());
+        map.clear();
+        Assert.assertTrue(map.asMap().isEmpty());
+    }
+
+    @Test
+    void concurrentWriters() throws Exception {
+        ConcurrentLongObjectMap<Long> map = new ConcurrentLongObjectMap<>();
+        int threadsCount = 4;
+        int keysPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threadsCount; thread++) {
+            long firstKey = 1 + (long) thread * keysPerThread;
+            futures.add(executor.submit(() -> {
+                for (long key = firstKey; key < firstKey + keysPerThread; key++) {
+                    map.put(key, key);
+                    Assert.assertEquals(Long.valueOf(key), map.get(key));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        Assert.assertEquals(threadsCount * keysPerThread, map.size());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.example.collections;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for ConcurrentLongSet
+ *
+ * @since 17.10.2026
+ */
+class ConcurrentLongSetTest {
+
+    @Test
+    void addContainsRemove() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        Assert.assertTrue(set.add(1));
+        Assert.assertFalse(set.add(1));
+        Assert.assertTrue(set.contains(1));
+        Assert.assertFalse(set.contains(2));
+        Assert.assertFalse(set.contains(0));
+        Assert.assertFalse(set.remove(0));
+        Assert.assertEquals(1, set.size());
+        Assert.assertTrue(set.remove(1));
+        Assert.assertFalse(set.remove(1));
+        Assert.assertFalse(set.contains(1));
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(1));
+        Assert.assertEquals(1, set.size());
+    }
+
+    @Test
+    void reservedValues() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+        assertThrows(IllegalArgumentException.class, () -> set.add(Long.MIN_VALUE));
+    }
+
+    @Test
+    void growShrinkAndIterate() {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        Set<Long> expected = new HashSet<>();
+        for (long value = 1; value <= 100_000; value++) {
+            set.add(value);
+            expected.add(value);
+        }
+        for (long value = 1; value <= 100_000; value++) {
+            if (value % 10 != 0) {
+                set.remove(value);
+                expected.remove(value);
+            }
+        }
+        for (long value = -1; value >= -1000; value--) {
+            set.add(value);
+            expected.add(value);
+        }
+        Set<Long> actual = new HashSet<>();
+        set.forEach(actual::add);
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.size(), set.size());
+    }
+}
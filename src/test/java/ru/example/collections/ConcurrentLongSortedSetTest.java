@@ -0,0 +1,102 @@
+package ru.example.collections;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for ConcurrentLongSortedSet
+ *
+ * @since 17.10.2026
+ */
+class ConcurrentLongSortedSetTest {
+
+    @Test
+    void addContainsRemove() {
+        ConcurrentLongSortedSet set = new ConcurrentLongSortedSet();
+        Assert.assertTrue(set.add(0));
+        Assert.assertTrue(set.add(5000));
+        Assert.assertFalse(set.add(5000));
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.contains(5000));
+        Assert.assertFalse(set.contains(5001));
+        Assert.assertFalse(set.contains(-1));
+        Assert.assertTrue(set.remove(5000));
+        Assert.assertFalse(set.remove(5000));
+        Assert.assertFalse(set.contains(5000));
+        Assert.assertTrue(set.add(5000));
+        Assert.assertTrue(set.contains(5000));
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+    }
+
+    @Test
+    void iterateInOrderAfterValue() {
+        ConcurrentLongSortedSet set = new ConcurrentLongSortedSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (long value = 100_000; value > 0; value -= 7) {
+            set.add(value);
+            expected.add(value);
+        }
+        for (long value = 1; value <= 100_000; value++) {
+            if (value % 3 == 0 && expected.remove(value)) {
+                Assert.assertTrue(set.remove(value));
+            }
+        }
+        set.add(Long.MAX_VALUE);
+        expected.add(Long.MAX_VALUE);
+
+        Assert.assertEquals(new ArrayList<>(expected), toList(set.iterator(-1)));
+        Assert.assertEquals(new ArrayList<>(expected.tailSet(4096L, false)), toList(set.iterator(4096)));
+        Assert.assertEquals(new ArrayList<>(expected.tailSet(50_005L, false)), toList(set.iterator(50_005)));
+        Assert.assertTrue(toList(set.iterator(Long.MAX_VALUE)).isEmpty());
+
+        set.clear();
+        Assert.assertTrue(toList(set.iterator(-1)).isEmpty());
+        Assert.assertTrue(set.add(7));
+        Assert.assertEquals(1, toList(set.iterator(-1)).size());
+    }
+
+    @Test
+    void concurrentAddAndRemove() throws Exception {
+        ConcurrentLongSortedSet set = new ConcurrentLongSortedSet();
+        int threads = 4;
+        int valuesPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int first = thread;
+            futures.add(executor.submit(() -> {
+                for (long value = first; value < (long) threads * valuesPerThread; value += threads) {
+                    set.add(value);
+                    if (value % 2 == 0) {
+                        set.remove(value);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        List<Long> actual = toList(set.iterator(-1));
+        Assert.assertEquals(threads * valuesPerThread / 2, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            Assert.assertEquals(2L * i + 1, (long) actual.get(i));
+        }
+    }
+
+    private static List<Long> toList(PrimitiveIterator.OfLong iterator) {
+        List<Long> result = new ArrayList<>();
+        iterator.forEachRemaining((long value) -> result.add(value));
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.example.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import ru.example.models.ImportResult;
+import ru.example.repositories.UsersRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for BulkImporter
+ *
+ * @since 17.10.2026
+ */
+class BulkImporterTest {
+
+    @Test
+    void countFailedBatchAndGoOn() throws Exception {
+        BulkImporter importer = new BulkImporter(new UsersRepository(), new ObjectMapper());
+        String body = "name,phone\n"
+                + CONTACT_NAME + "," + CONTACT_PHONE + "\n"
+                + CONTACT_NAME + "\n";
+
+        ImportResult result = importer.importContactsCsv(USER_NONEXISTENT_ID,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(2, result.getReceived());
+        Assert.assertEquals(0, result.getImported());
+        Assert.assertEquals(2, result.getFailed());
+        Assert.assertEquals(2, result.getErrors().size());
+        Assert.assertEquals(2, result.getErrors().get(1).getLine());
+    }
+}
@@ -0,0 +1,168 @@
+package ru.example.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.example.models.Contact;
+import ru.example.models.ContactOperation;
+import ru.example.models.User;
+import ru.example.repositories.ContactChangeFeed;
+import ru.example.repositories.UsersRepository;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for ContactChangeStreams
+ *
+ * @since 17.10.2026
+ */
+class ContactChangeStreamsTest {
+
+    @Test
+    void resyncStalledStreamWithoutDelayingOthers() throws Exception {
+        UsersRepository repository = new UsersRepository();
+        ContactChangeFeed feed = new ContactChangeFeed(repository, 100, 1000);
+        feed.start();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        ContactChangeStreams streams = new ContactChangeStreams(feed, new ObjectMapper(), 2, 60000, senders,
+                registry);
+        Long userId = repository.save(new User(USER_NAME)).getId();
+        TestOutput stalledOutput = new TestOutput(false);
+        MockHttpServletRequest stalledRequest = asyncRequest();
+        streams.subscribe(userId, null, stalledRequest, response(stalledOutput));
+        TestOutput healthyOutput = new TestOutput(true);
+        MockHttpServletRequest healthyRequest = asyncRequest();
+        streams.subscribe(userId, null, healthyRequest, response(healthyOutput));
+
+        for (int i = 1; i <= 3; i++) {
+            Contact contact = repository.addContact(userId, new Contact(CONTACT_NAME, CONTACT_PHONE));
+            await(() -> healthyOutput.text().contains("\"contactId\":" + contact.getId()));
+        }
+        Assert.assertEquals(1, registry.get("telephonebook.sse.overflows").counter().count(), 0);
+        Assert.assertEquals(2, registry.get("telephonebook.sse.streams").gauge().value(), 0);
+        Assert.assertEquals("", stalledOutput.text());
+        Assert.assertTrue(stalledRequest.isAsyncStarted());
+        Assert.assertFalse(healthyOutput.text().contains("event:" + ContactChangeStreams.RESYNC_EVENT));
+
+        repository.deleteById(userId);
+        await(() -> !healthyRequest.isAsyncStarted());
+        Assert.assertTrue(healthyOutput.text().endsWith("event:deleted\ndata:" + userId + "\n\n"));
+        Assert.assertEquals(1, registry.get("telephonebook.sse.streams").gauge().value(), 0);
+        senders.shutdownNow();
+    }
+
+    @Test
+    void resyncFastStreamAfterLargeBatch() throws Exception {
+        UsersRepository repository = new UsersRepository();
+        ContactChangeFeed feed = new ContactChangeFeed(repository, 100, 1000);
+        feed.start();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        ContactChangeStreams streams = new ContactChangeStreams(feed, new ObjectMapper(), 2, 60000, senders,
+                registry);
+        Long userId = repository.save(new User(USER_NAME)).getId();
+        TestOutput output = new TestOutput(true);
+        MockHttpServletRequest request = asyncRequest();
+        streams.subscribe(userId, null, request, response(output));
+        long since = repository.findById(userId).get().version();
+
+        List<ContactOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ContactOperation add = new ContactOperation();
+            add.setType(ContactOperation.Type.ADD);
+            add.setName(CONTACT_NAME + i);
+            add.setPhone(CONTACT_PHONE);
+            operations.add(add);
+        }
+        senders.submit(() -> repository.applyContactOperations(userId, operations)).get();
+        await(() -> output.text().contains("event:" + ContactChangeStreams.RESYNC_EVENT));
+        Assert.assertTrue(request.isAsyncStarted());
+        String resync = output.text().split("event:" + ContactChangeStreams.RESYNC_EVENT + "\n")[1];
+        long resyncSequence = Long.parseLong(resync.substring(resync.indexOf("data:") + 5, resync.indexOf("\n\n")));
+        Assert.assertTrue(resyncSequence >= since);
+        Assert.assertEquals(5, feed.findChanges(userId, resyncSequence).getChanges().size());
+        Assert.assertTrue(registry.get("telephonebook.sse.overflows").counter().count() > 0);
+
+        Contact contact = repository.addContact(userId, new Contact(CONTACT_NAME, CONTACT_PHONE));
+        await(() -> output.text().contains("\"contactId\":" + contact.getId()));
+        senders.shutdownNow();
+    }
+
+    private static MockHttpServletRequest asyncRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockHttpServletResponse response(TestOutput output) {
+        return new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return output;
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Condition is not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Non-blocking output of client: ready client reads everything, stalled client never reads.
+     */
+    private static final class TestOutput extends ServletOutputStream {
+        private final boolean ready;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        TestOutput(boolean ready) {
+            this.ready = ready;
+        }
+
+        synchronized String text() {
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (ready) {
+                try {
+                    writeListener.onWritePossible();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            Assert.assertTrue(ready);
+            bytes.write(b);
+        }
+    }
+}
@@ -3,21 +3,41 @@ package ru.example.controllers;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import com.jayway.jsonpath.JsonPath;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestClientException;
 import ru.example.TelephoneBookApp;
+import ru.example.models.BatchResult;
 import ru.example.models.Contact;
+import ru.example.models.ImportResult;
+import ru.example.models.MemoryReport;
+import ru.example.models.Page;
+import ru.example.models.PhoneOwner;
+import ru.example.models.SlowOperation;
 import ru.example.models.User;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -66,6 +86,33 @@ public class UserControllerTest {
         Assert.assertNotEquals(EMPTY_BODY, response.getBody());
     }
 
+    @Test
+    public void getUsersPage() {
+        User firstUser = createUserInRepository();
+        User secondUser = createUserInRepository();
+        String targetUri = getRootUrl() + "?limit=1&after=" + (firstUser.getId() - 1);
+
+        ResponseEntity<Page<User>> response = restTemplate.exchange(targetUri,
+                HttpMethod.GET, null, new ParameterizedTypeReference<Page<User>>() {
+                });
+        Page<User> page = response.getBody();
+        Assert.assertEquals(Collections.singletonList(firstUser), page.getItems());
+        Assert.assertEquals(firstUser.getId(), page.getNextAfter());
+        Assert.assertTrue(secondUser.getId() > page.getNextAfter());
+    }
+
+    @Test
+    public void streamAllUsers() {
+        User sampleUser = createUserInRepository();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType(NDJSON_TYPE)));
+        HttpEntity<String> entity = new HttpEntity<>(null, headers);
+        ResponseEntity<String> response = restTemplate.exchange(getRootUrl(),
+                HttpMethod.GET, entity, String.class);
+        String[] lines = response.getBody().split("\n");
+        Assert.assertTrue(Arrays.stream(lines).anyMatch(it -> it.contains("\"id\":" + sampleUser.getId() + ",")));
+    }
+
     @Test
     public void getUserById() {
         User sampleUser = createUserInRepository();
@@ -73,6 +120,143 @@ public class UserControllerTest {
         Assert.assertEquals(sampleUser, userFromRepository);
     }
 
+    @Test
+    public void conditionalGetUser() {
+        Long userId = createUserInRepository().getId();
+        ResponseEntity<String> response = restTemplate.getForEntity(getRootUrl() + userId, String.class);
+        String eTag = response.getHeaders().getETag();
+        Assert.assertNotNull(eTag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        HttpEntity<String> entity = new HttpEntity<>(null, headers);
+        ResponseEntity<String> notModified = restTemplate.exchange(getRootUrl() + userId,
+                HttpMethod.GET, entity, String.class);
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        Assert.assertNull(notModified.getBody());
+        notModified = restTemplate.exchange(getRootUrl() + userId + CONTACTS_URL, HttpMethod.GET, entity, String.class);
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+
+        restTemplate.postForEntity(getRootUrl() + userId + CONTACTS_URL, new Contact(CONTACT_NAME, CONTACT_PHONE),
+                String.class);
+        ResponseEntity<String> modified = restTemplate.exchange(getRootUrl() + userId + CONTACTS_URL,
+                HttpMethod.GET, entity, String.class);
+        Assert.assertEquals(HttpStatus.OK, modified.getStatusCode());
+        Assert.assertNotEquals(eTag, modified.getHeaders().getETag());
+    }
+
+    @Test
+    public void getUsersBatch() {
+        User sampleUser = createUserInRepository();
+        ResponseEntity<BatchResult<User>> response = restTemplate.exchange(getRootUrl() + BATCH_URL, HttpMethod.POST,
+                new HttpEntity<>(Arrays.asList(sampleUser.getId(), USER_NONEXISTENT_ID)),
+                new ParameterizedTypeReference<BatchResult<User>>() {
+                });
+        Assert.assertEquals(Collections.singletonList(sampleUser), response.getBody().getFound());
+        Assert.assertEquals(Collections.singletonList(USER_NONEXISTENT_ID), response.getBody().getMissing());
+
+        ResponseEntity<String> tooLarge = restTemplate.postForEntity(getRootUrl() + BATCH_URL,
+                Collections.nCopies(1001, sampleUser.getId()), String.class);
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+    }
+
+    @Test
+    public void getContactsBatch() {
+        User sampleUser = createUserInRepository();
+        Contact sampleContact = sampleUser.getContacts().values().iterator().next();
+        ResponseEntity<BatchResult<Contact>> response = restTemplate.exchange(
+                getRootUrl() + sampleUser.getId() + CONTACTS_URL + BATCH_URL, HttpMethod.POST,
+                new HttpEntity<>(Arrays.asList(CONTACT_NONEXISTENT_ID, sampleContact.getId())),
+                new ParameterizedTypeReference<BatchResult<Contact>>() {
+                });
+        Assert.assertEquals(Collections.singletonList(sampleContact), response.getBody().getFound());
+        Assert.assertEquals(Collections.singletonList(CONTACT_NONEXISTENT_ID), response.getBody().getMissing());
+    }
+
+    @Test
+    public void applyContactOperations() {
+        User sampleUser = createUserInRepository();
+        Contact sampleContact = sampleUser.getContacts().values().iterator().next();
+        String operationsUrl = getRootUrl() + sampleUser.getId() + CONTACTS_URL + OPERATIONS_URL;
+        String missingDelete = "{\"type\":\"DELETE\",\"contactId\":" + CONTACT_NONEXISTENT_ID + "}";
+        String add = "{\"type\":\"ADD\",\"name\":\"" + CONTACT_NAME + "\",\"phone\":\"" + CONTACT_PHONE + "\"}";
+        String delete = "{\"type\":\"DELETE\",\"contactId\":" + sampleContact.getId() + "}";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> notFound = restTemplate.postForEntity(operationsUrl,
+                new HttpEntity<>("[" + add + "," + missingDelete + "]", headers), String.class);
+        Assert.assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        ResponseEntity<String> invalid = restTemplate.postForEntity(operationsUrl,
+                new HttpEntity<>("[" + add + ",{}]", headers), String.class);
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+        Assert.assertEquals(1, restTemplate.getForObject(getRootUrl() + sampleUser.getId(), User.class)
+                .getContacts().size());
+
+        ResponseEntity<Contact[]> applied = restTemplate.postForEntity(operationsUrl,
+                new HttpEntity<>("[" + add + "," + delete + "]", headers), Contact[].class);
+        Assert.assertEquals(HttpStatus.OK, applied.getStatusCode());
+        User updatedUser = restTemplate.getForObject(getRootUrl() + sampleUser.getId(), User.class);
+        Assert.assertEquals(Collections.singleton(applied.getBody()[0].getId()), updatedUser.getContacts().keySet());
+    }
+
+    @Test
+    public void getContactChanges() {
+        Long userId = createUserInRepository().getId();
+        String eTag = restTemplate.getForEntity(getRootUrl() + userId + CONTACTS_URL, String.class)
+                .getHeaders().getETag();
+        long since = Long.parseLong(eTag.replace("\"", ""));
+        Contact contact = restTemplate.postForObject(getRootUrl() + userId + CONTACTS_URL,
+                new Contact(CONTACT_NAME, CONTACT_PHONE), Contact.class);
+
+        String changes = restTemplate.getForObject(getRootUrl() + userId + CONTACTS_URL + CHANGES_URL + since,
+                String.class);
+        Assert.assertEquals(Integer.valueOf(1), JsonPath.read(changes, "$.changes.length()"));
+        Assert.assertEquals(contact.getId().intValue(), (int) JsonPath.read(changes, "$.changes[0].contactId"));
+        Assert.assertFalse(JsonPath.read(changes, "$.resyncRequired"));
+        String resync = restTemplate.getForObject(getRootUrl() + userId + CONTACTS_URL + CHANGES_URL + 0,
+                String.class);
+        Assert.assertTrue(JsonPath.read(resync, "$.resyncRequired"));
+    }
+
+    @Test
+    public void streamContactChanges() throws IOException {
+        Long userId = createUserInRepository().getId();
+        String eTag = restTemplate.getForEntity(getRootUrl() + userId + CONTACTS_URL, String.class)
+                .getHeaders().getETag();
+        Contact contact = restTemplate.postForObject(getRootUrl() + userId + CONTACTS_URL,
+                new Contact(CONTACT_NAME, CONTACT_PHONE), Contact.class);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(getRootUrl() + userId + CONTACTS_URL
+                + CHANGES_URL + eTag.replace("\"", "")).openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        connection.setReadTimeout(10000);
+        try (BufferedReader events = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            Assert.assertTrue(readData(events, "contact").contains("\"contactId\":" + contact.getId()));
+            restTemplate.put(getRootUrl() + userId, new User("new" + USER_NAME));
+            Assert.assertTrue(readData(events, "user").contains("new" + USER_NAME));
+            restTemplate.delete(getRootUrl() + userId);
+            Assert.assertEquals(userId.toString(), readData(events, "deleted"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String readData(BufferedReader events, String eventName) throws IOException {
+        String line;
+        while ((line = events.readLine()) != null) {
+            if (line.equals("event:" + eventName)) {
+                while ((line = events.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        return line.substring("data:".length());
+                    }
+                }
+            }
+        }
+        throw new AssertionError("Stream is completed without event " + eventName);
+    }
+
     @Test
     public void updateUser() {
         User newUser = createUserInRepository();
@@ -123,6 +307,19 @@ public class UserControllerTest {
         Assert.assertNotEquals(EMPTY_BODY, response.getBody());
     }
 
+    @Test
+    public void streamAllContacts() {
+        User sampleUser = createUserInRepository();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.parseMediaType(NDJSON_TYPE)));
+        HttpEntity<String> entity = new HttpEntity<>(null, headers);
+        ResponseEntity<String> response = restTemplate.exchange(getRootUrl() + sampleUser.getId() + CONTACTS_URL,
+                HttpMethod.GET, entity, String.class);
+        String[] lines = response.getBody().split("\n");
+        Assert.assertEquals(sampleUser.getContacts().size(), lines.length);
+        Assert.assertTrue(lines[0].contains(CONTACT_PHONE));
+    }
+
     @Test
     public void getContactById() {
         User sampleUser = createUserInRepository();
@@ -201,4 +398,115 @@ public class UserControllerTest {
         List<Contact> contactsList = Arrays.asList(result);
         Assert.assertTrue(contactsList.contains(sampleContact));
     }
+
+    @Test
+    public void lookupPhone() {
+        User sampleUser = createUserInRepository();
+        Contact sampleContact = sampleUser.getContacts()
+                .values()
+                .stream()
+                .findAny()
+                .get();
+
+        String targetUri = LOCALHOST_URL + port + LOOKUP_URL;
+        PhoneOwner[] result = restTemplate.postForObject(targetUri, sampleContact.getPhone(), PhoneOwner[].class);
+        List<PhoneOwner> ownersList = Arrays.asList(result);
+        Assert.assertTrue(ownersList.contains(new PhoneOwner(sampleUser.getId(), sampleContact.getId())));
+    }
+
+    @Test
+    public void importUsersNdjson() {
+        String importedName = USER_NAME + System.nanoTime();
+        String body = "{\"name\":\"" + importedName + "\"}\n"
+                + "not a json\n"
+                + "{\"name\":\"" + importedName + "\",\"contacts\":{}}\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(NDJSON_TYPE));
+
+        ImportResult result = restTemplate.postForObject(getRootUrl() + IMPORT_URL,
+                new HttpEntity<>(body, headers), ImportResult.class);
+        Assert.assertEquals(3, result.getReceived());
+        Assert.assertEquals(2, result.getImported());
+        Assert.assertEquals(1, result.getFailed());
+        Assert.assertEquals(1, result.getErrors().size());
+        Assert.assertEquals(2, result.getErrors().get(0).getLine());
+        User[] importedUsers = restTemplate.postForObject(getRootUrl() + SEARCH_URL, importedName, User[].class);
+        Assert.assertEquals(2, importedUsers.length);
+    }
+
+    @Test
+    public void importContactsCsv() {
+        Long userId = createUserInRepository().getId();
+        String body = "name,phone\n"
+                + CONTACT_NAME + "," + CONTACT_PHONE + "\n"
+                + "\"" + CONTACT_NAME + ", Jr.\",\"" + CONTACT_PHONE + "\"\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(CSV_TYPE));
+
+        ImportResult result = restTemplate.postForObject(getRootUrl() + userId + CONTACTS_URL + IMPORT_URL,
+                new HttpEntity<>(body, headers), ImportResult.class);
+        Assert.assertEquals(2, result.getImported());
+        User user = restTemplate.getForObject(getRootUrl() + userId, User.class);
+        Contact importedContact = user.getContacts().values().stream()
+                .filter(contact -> contact.getName().equals(CONTACT_NAME + ", Jr."))
+                .findAny()
+                .get();
+        Assert.assertEquals(CONTACT_PHONE, importedContact.getPhone());
+    }
+
+    @Test
+    public void rejectUnknownExportFormat() {
+        ResponseEntity<String> response = restTemplate.getForEntity(getRootUrl() + EXPORT_URL + "?format=xml",
+                String.class);
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void exportUsersCsv() {
+        User sampleUser = createUserInRepository();
+        Contact sampleContact = sampleUser.getContacts().values().stream().findAny().get();
+
+        String body = restTemplate.getForObject(getRootUrl() + EXPORT_URL + "?format=csv", String.class);
+        String[] lines = body.split("\\n");
+        Assert.assertEquals("userId,userName,contactId,contactName,contactPhone", lines[0]);
+        String expectedLine = sampleUser.getId() + "," + USER_NAME + "," + sampleContact.getId() + ","
+                + CONTACT_NAME + "," + CONTACT_PHONE;
+        Assert.assertTrue(Arrays.asList(lines).contains(expectedLine));
+    }
+
+    @Test
+    public void exportUsersGzip() throws IOException {
+        User sampleUser = createUserInRepository();
+
+        byte[] body = restTemplate.getForObject(getRootUrl() + EXPORT_URL + "?gzip=true", byte[].class);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String ndjson = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+            Assert.assertTrue(ndjson.contains("\"id\":" + sampleUser.getId() + ","));
+        }
+    }
+
+    @Test
+    public void prometheusMetrics() {
+        createUserInRepository();
+        String metrics = restTemplate.getForObject(LOCALHOST_URL + port + PROMETHEUS_URL, String.class);
+        Assert.assertTrue(metrics.contains("telephonebook_users"));
+        Assert.assertTrue(metrics.contains("telephonebook_repository_seconds_count{operation=\"save\""));
+    }
+
+    @Test
+    public void slowOperations() {
+        ResponseEntity<SlowOperation[]> response = restTemplate.getForEntity(
+                LOCALHOST_URL + port + SLOW_OPERATIONS_URL + "?limit=5", SlowOperation[].class);
+        Assert.assertEquals(200, response.getStatusCodeValue());
+        Assert.assertTrue(response.getBody().length <= 5);
+    }
+
+    @Test
+    public void memoryReport() {
+        createUserInRepository();
+        MemoryReport report = restTemplate.getForObject(LOCALHOST_URL + port + MEMORY_URL, MemoryReport.class);
+        Assert.assertEquals("heap", report.getContactStorage());
+        Assert.assertTrue(report.getHeapUsedBytes() > 0);
+        Assert.assertTrue(report.getNamePoolLookups() > 0);
+    }
 }
@@ -0,0 +1,45 @@
+package ru.example.models;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for BlockIdGenerator
+ *
+ * @since 17.10.2026
+ */
+class BlockIdGeneratorTest {
+
+    @Test
+    void generateUniqueIdsInThreads() throws InterruptedException {
+        BlockIdGenerator generator = new BlockIdGenerator(16);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        Assert.assertEquals(4000, ids.size());
+        Assert.assertTrue(ids.stream().allMatch(it -> it > 0 && it <= generator.lastId()));
+    }
+
+    @Test
+    void skipReservedIdsInCurrentBlock() {
+        BlockIdGenerator generator = new BlockIdGenerator(16);
+        Assert.assertEquals(1, generator.nextId());
+        generator.advanceTo(100);
+        Assert.assertTrue(generator.nextId() > 100);
+        Assert.assertTrue(generator.lastId() > 100);
+    }
+}
@@ -1,7 +1,11 @@
 package ru.example.models;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
+import ru.example.search.PackedDigits;
+
+import java.io.IOException;
 
 import static ru.example.Constants.CONTACT_NAME;
 import static ru.example.Constants.CONTACT_PHONE;
@@ -22,4 +26,27 @@ class ContactTest {
         Assert.assertEquals(CONTACT_NAME, contactWithoutId.getName());
         Assert.assertEquals(CONTACT_PHONE, contactWithoutId.getPhone());
     }
-}
\ No newline at end of file
+
+    @Test
+    void keepPhoneFormatting() {
+        String formattedPhone = "+7 (999) 000-00-00";
+        Contact contact = new Contact(CONTACT_NAME, formattedPhone);
+        Assert.assertEquals(formattedPhone, contact.getPhone());
+        Assert.assertTrue(contact.phoneContainsDigits("9990", PackedDigits.pack("9990")));
+        contact.setPhone(null);
+        Assert.assertNull(contact.getPhone());
+        Assert.assertFalse(contact.phoneContainsDigits("9990", PackedDigits.pack("9990")));
+        Assert.assertEquals(contact, contact.withInfo(contact));
+    }
+
+    @Test
+    void readContactFromJson() throws IOException {
+        Contact contact = new ObjectMapper().readValue(
+                "{\"name\":\"" + CONTACT_NAME + "\",\"phone\":\"" + CONTACT_PHONE + "\"}", Contact.class);
+        Assert.assertNotNull(contact.getId());
+        Assert.assertEquals(CONTACT_NAME, contact.getName());
+        Assert.assertEquals(CONTACT_PHONE, contact.getPhone());
+        Assert.assertEquals("{\"id\":" + contact.getId() + ",\"name\":\"" + CONTACT_NAME + "\",\"phone\":\""
+                + CONTACT_PHONE + "\"}", new ObjectMapper().writeValueAsString(contact));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.example.models;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for StringPool
+ *
+ * @since 17.10.2026
+ */
+class StringPoolTest {
+
+    @Test
+    void deduplicateEqualStrings() {
+        StringPool pool = new StringPool(16);
+        String first = new String(CONTACT_NAME);
+        String second = new String(CONTACT_NAME);
+        Assert.assertSame(first, pool.intern(first));
+        Assert.assertSame(first, pool.intern(second));
+        Assert.assertSame(first, pool.intern(first));
+        Assert.assertNull(pool.intern(null));
+        Assert.assertEquals(3, pool.lookups());
+        Assert.assertEquals(1, pool.hits());
+        Assert.assertTrue(pool.savedBytes() > 0);
+    }
+
+    @Test
+    void poolIsBounded() {
+        StringPool pool = new StringPool(4);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(CONTACT_NAME + i, pool.intern(CONTACT_NAME + i));
+        }
+        Assert.assertEquals(4, pool.capacity());
+    }
+
+    @Test
+    void contactNamesAreDeduplicated() {
+        Contact first = new Contact(new String(CONTACT_NAME), CONTACT_PHONE);
+        Contact second = new Contact(new String(CONTACT_NAME), CONTACT_PHONE);
+        Assert.assertSame(first.getName(), second.getName());
+        Assert.assertSame(first.getName(), second.withInfo(first).getName());
+    }
+}
@@ -3,11 +3,23 @@ package ru.example.models;
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.example.exceptions.ContactNotFoundException;
+import ru.example.exceptions.InvalidContactOperationException;
+import ru.example.storage.HeapContactStorage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static ru.example.Constants.*;
 
 /**
@@ -45,6 +57,115 @@ class UserTest {
         Assert.assertEquals(CONTACTS, contactsFromUser);
     }
 
+    @Test
+    void increaseVersionOnChanges() {
+        User user = new User(USER_NAME);
+        long version = user.version();
+        Contact contact = user.addContact(new Contact(CONTACT_NAME, CONTACT_PHONE));
+        Assert.assertTrue(user.version() > version);
+        version = user.version();
+        Contact updatedContact = user.updateContact(contact.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE + 1));
+        Assert.assertTrue(updatedContact.version() > contact.version());
+        Assert.assertTrue(user.version() > version);
+        version = user.version();
+        user.deleteContactById(contact.getId());
+        Assert.assertTrue(user.version() > version);
+        version = user.version();
+        user.setName(USER_NAME + 1);
+        Assert.assertTrue(user.version() > version);
+    }
+
+    @Test
+    void applyContactOperationsAllOrNothing() {
+        User user = new User(USER_NAME);
+        Contact contact = user.addContact(new Contact(CONTACT_NAME, CONTACT_PHONE));
+        long version = user.version();
+        List<ContactChange> notifiedChanges = new ArrayList<>();
+
+        ContactOperation update = operation(ContactOperation.Type.UPDATE, contact.getId(), CONTACT_NAME + 1);
+        ContactOperation delete = operation(ContactOperation.Type.DELETE, contact.getId(), null);
+        assertThrows(ContactNotFoundException.class,
+                () -> user.applyContactOperations(Arrays.asList(delete, update), notifiedChanges::addAll));
+        assertThrows(InvalidContactOperationException.class,
+                () -> user.applyContactOperations(Arrays.asList(update, new ContactOperation()), notifiedChanges::addAll));
+        Assert.assertEquals(contact, user.getContactById(contact.getId()).get());
+        Assert.assertEquals(version, user.version());
+        Assert.assertTrue(notifiedChanges.isEmpty());
+
+        ContactOperation add = operation(ContactOperation.Type.ADD, null, CONTACT_NAME + 2);
+        List<Contact> results = user.applyContactOperations(Arrays.asList(add, update, delete), notifiedChanges::addAll);
+        Assert.assertEquals(3, notifiedChanges.size());
+        Assert.assertEquals(CONTACT_NAME + 1, results.get(1).getName());
+        Assert.assertEquals(Collections.singleton(results.get(0).getId()), user.getContacts().keySet());
+        Assert.assertEquals(1, user.contactsCount());
+        Assert.assertEquals(1, user.searchContactsByPhone(CONTACT_PHONE).size());
+        Assert.assertTrue(user.version() > version);
+    }
+
+    @Test
+    void undoAppliedOperationsOnFailure() {
+        User.useContactStorage(() -> new HeapContactStorage() {
+            @Override
+            public Contact put(Contact contact) {
+                if (USER_NAME.equals(contact.getName())) {
+                    throw new IllegalStateException("Storage failure");
+                }
+                return super.put(contact);
+            }
+        });
+        User user;
+        try {
+            user = new User(USER_NAME, CONTACTS);
+        } finally {
+            User.useContactStorage(HeapContactStorage::new);
+        }
+        Map<Long, Contact> contacts = new HashMap<>(user.getContacts());
+        Long contactId = contacts.keySet().iterator().next();
+        long version = user.version();
+        List<ContactChange> notifiedChanges = new ArrayList<>();
+
+        List<ContactOperation> operations = Arrays.asList(
+                operation(ContactOperation.Type.ADD, null, CONTACT_NAME),
+                operation(ContactOperation.Type.UPDATE, contactId, CONTACT_NAME),
+                operation(ContactOperation.Type.DELETE, contactId, null),
+                operation(ContactOperation.Type.ADD, null, USER_NAME));
+        assertThrows(IllegalStateException.class, () -> user.applyContactOperations(operations, notifiedChanges::addAll));
+        Assert.assertEquals(contacts, user.getContacts());
+        Assert.assertEquals(contacts.size(), user.contactsCount());
+        Assert.assertTrue(user.version() > version);
+        Assert.assertEquals(6, notifiedChanges.size());
+        Assert.assertEquals(notifiedChanges.get(0).getNewContact(), notifiedChanges.get(5).getOldContact());
+        Assert.assertNull(notifiedChanges.get(5).getNewContact());
+        Assert.assertEquals(contacts.get(contactId), notifiedChanges.get(4).getNewContact());
+    }
+
+    private static ContactOperation operation(ContactOperation.Type type, Long contactId, String name) {
+        ContactOperation operation = new ContactOperation();
+        operation.setType(type);
+        operation.setContactId(contactId);
+        operation.setName(name);
+        operation.setPhone(CONTACT_PHONE);
+        return operation;
+    }
+
+    @Test
+    void restoreUserWithKnownIds() {
+        long version = VersionClock.reserve(User.PHONE_INDEX_THRESHOLD);
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < User.PHONE_INDEX_THRESHOLD; i++) {
+            contacts.add(Contact.of(Contact.lastId() + 1 + i, CONTACT_NAME + i, CONTACT_PHONE + i, version + i));
+        }
+        User user = User.of(User.lastId() + 1, USER_NAME, contacts);
+
+        Assert.assertEquals(Long.valueOf(User.lastId() + 1), user.getId());
+        Assert.assertEquals(contacts, new ArrayList<>(user.getContacts().values()));
+        Assert.assertEquals(version, user.getContactById(contacts.get(0).getId()).get().version());
+        Assert.assertEquals(contacts.size(), user.contactsCount());
+        SearchResult<Contact> result = user.searchContacts(CONTACT_PHONE + 42);
+        Assert.assertEquals(Collections.singletonList(contacts.get(42)), result.getItems());
+        Assert.assertTrue(result.getCandidates() < contacts.size());
+    }
+
     @Test
     void getContactById() {
         User userWithContacts = new User(USER_NAME, CONTACTS);
@@ -100,4 +221,79 @@ class UserTest {
         Assert.assertEquals(newContact.getName(), updatedContact.get().getName());
         Assert.assertEquals(newContact.getPhone(), updatedContact.get().getPhone());
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchContactsByFormattedPhone() {
+        User userWithOnlyName = new User(USER_NAME);
+        Contact newContact = new Contact(CONTACT_NAME, "+7 (800) 555-35-35");
+        userWithOnlyName.addContact(newContact);
+
+        List<Contact> result = userWithOnlyName.searchContactsByPhone("555-3535");
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(newContact, result.get(0));
+    }
+
+    @Test
+    void searchContactsAfterUpdate() {
+        User userWithContacts = new User(USER_NAME, CONTACTS);
+        Contact anyContact = userWithContacts.getContacts()
+                .values()
+                .stream()
+                .findAny()
+                .get();
+        Long contactId = anyContact.getId();
+
+        userWithContacts.updateContact(contactId, new Contact(CONTACT_NAME, "1234567"));
+
+        List<Contact> result = userWithContacts.searchContactsByPhone("3456");
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(contactId, result.get(0).getId());
+    }
+
+    @Test
+    void searchContactsAfterDelete() {
+        User userWithContacts = new User(USER_NAME, CONTACTS);
+        userWithContacts.deleteAllContacts();
+        Assert.assertTrue(userWithContacts.searchContactsByPhone(CONTACT_PHONE).isEmpty());
+    }
+
+    @Test
+    void searchContactsInLargeBook() {
+        User user = new User(USER_NAME);
+        for (int i = 0; i < User.PHONE_INDEX_THRESHOLD; i++) {
+            user.addContact(new Contact(CONTACT_NAME + i, String.format("+7 900 %07d", i)));
+        }
+        Contact contact = user.addContact(new Contact(CONTACT_NAME, "8 (800) 555-35-35"));
+
+        SearchResult<Contact> result = user.searchContacts("555-35");
+        Assert.assertEquals(Collections.singletonList(contact), result.getItems());
+        Assert.assertTrue(result.getCandidates() < user.contactsCount());
+        Assert.assertEquals(User.PHONE_INDEX_THRESHOLD, user.searchContactsByPhone("9").size());
+
+        Contact updatedContact = user.updateContact(contact.getId(), new Contact(CONTACT_NAME, "8 (800) 444-35-35"));
+        Assert.assertTrue(user.searchContactsByPhone("555-35").isEmpty());
+        Assert.assertEquals(Collections.singletonList(updatedContact), user.searchContactsByPhone("444"));
+        user.deleteContactById(contact.getId());
+        Assert.assertTrue(user.searchContactsByPhone("444").isEmpty());
+    }
+
+    @Test
+    void updateContactConcurrently() throws InterruptedException {
+        User userWithOnlyName = new User(USER_NAME);
+        Long contactId = userWithOnlyName.addContact(new Contact(CONTACT_NAME, CONTACT_PHONE)).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            String suffix = String.valueOf(i);
+            executor.execute(() -> userWithOnlyName.updateContact(contactId,
+                    new Contact(CONTACT_NAME + suffix, CONTACT_PHONE + suffix)));
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Contact contact = userWithOnlyName.getContactById(contactId).get();
+        String suffix = contact.getName().substring(CONTACT_NAME.length());
+        Assert.assertEquals(CONTACT_PHONE + suffix, contact.getPhone());
+        Assert.assertEquals(1, userWithOnlyName.searchContactsByPhone(contact.getPhone()).size());
+    }
+}
@@ -0,0 +1,43 @@
+package ru.example.persistence;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.example.models.Contact;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static ru.example.Constants.*;
+
+/**
+ * Tests for BinarySnapshot
+ *
+ * @since 17.10.2026
+ */
+class BinarySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndLoadSnapshot() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        User user = new User(USER_NAME);
+        for (int i = 0; i < NUMBER_OF_CONTACTS; i++) {
+            user.addContact(new Contact(CONTACT_NAME + i, CONTACT_PHONE + i));
+        }
+        user.addContact(new Contact(null, "Телефон"));
+        repository.save(user);
+        repository.save(new User(null));
+        Path snapshot = directory.resolve("snapshot.bin");
+
+        Assert.assertEquals(2, BinarySnapshot.write(repository.iterateAll(null), snapshot));
+
+        UsersRepository loadedRepository = new UsersRepository();
+        Assert.assertEquals(2, BinarySnapshot.load(snapshot, loadedRepository));
+        Assert.assertEquals(repository.findAll(), loadedRepository.findAll());
+        Assert.assertEquals(1, loadedRepository.searchContacts(user.getId(), CONTACT_PHONE + "14").size());
+    }
+}
@@ -0,0 +1,165 @@
+package ru.example.persistence;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.example.models.Contact;
+import ru.example.models.ContactOperation;
+import ru.example.models.User;
+import ru.example.repositories.UsersRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.example.Constants.*;
+
+/**
+ * Tests for UsersPersistence: changes must survive restart with and without snapshot.
+ *
+ * @since 17.10.2026
+ */
+class UsersPersistenceTest {
+    @TempDir
+    Path directory;
+
+    private UsersPersistence start(UsersRepository repository) throws IOException {
+        UsersPersistence persistence = new UsersPersistence(repository, directory.toString(), true, 3600, 1 << 20);
+        persistence.start();
+        return persistence;
+    }
+
+    @Test
+    void recoverFromLog() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = start(repository);
+        User user = repository.save(new User(USER_NAME));
+        Contact contact = repository.addContact(user.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        Contact deletedContact = repository.addContact(user.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        repository.updateContact(user.getId(), contact.getId(), new Contact("new" + CONTACT_NAME, CONTACT_PHONE));
+        repository.deleteContactByContactId(user.getId(), deletedContact.getId());
+        repository.updateUserInfo(user.getId(), new User("new" + USER_NAME));
+        User deletedUser = repository.save(new User(USER_NAME));
+        repository.deleteById(deletedUser.getId());
+        persistence.stop();
+
+        UsersRepository recoveredRepository = new UsersRepository();
+        start(recoveredRepository).stop();
+
+        Assert.assertEquals(1, recoveredRepository.findAll().size());
+        Optional<User> recoveredUser = recoveredRepository.findById(user.getId());
+        Assert.assertTrue(recoveredUser.isPresent());
+        Assert.assertEquals("new" + USER_NAME, recoveredUser.get().getName());
+        Assert.assertEquals(1, recoveredUser.get().getContacts().size());
+        Assert.assertEquals("new" + CONTACT_NAME, recoveredUser.get().getContactById(contact.getId()).get().getName());
+        Assert.assertTrue(User.lastId() >= deletedUser.getId());
+    }
+
+    @Test
+    void recoverAfterAsyncLogWithBackpressure() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = new UsersPersistence(repository, directory.toString(), false, 3600, 1);
+        persistence.start();
+        User user = repository.save(new User(USER_NAME));
+        for (int i = 0; i < 1000; i++) {
+            repository.addContact(user.getId(), new Contact(CONTACT_NAME + i, CONTACT_PHONE + i));
+        }
+        persistence.stop();
+
+        UsersRepository recoveredRepository = new UsersRepository();
+        start(recoveredRepository).stop();
+        Assert.assertEquals(user.getContacts(), recoveredRepository.findAllUserContacts(user.getId()));
+    }
+
+    @Test
+    void recoverContactsBatch() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = start(repository);
+        User user = repository.save(new User(USER_NAME));
+        Contact contact = repository.addContact(user.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        ContactOperation add = new ContactOperation();
+        add.setType(ContactOperation.Type.ADD);
+        add.setName(CONTACT_NAME);
+        add.setPhone(CONTACT_PHONE);
+        ContactOperation delete = new ContactOperation();
+        delete.setType(ContactOperation.Type.DELETE);
+        delete.setContactId(contact.getId());
+        List<Contact> results = repository.applyContactOperations(user.getId(), Arrays.asList(add, delete));
+        persistence.stop();
+
+        UsersRepository recoveredRepository = new UsersRepository();
+        start(recoveredRepository).stop();
+
+        Assert.assertEquals(recoveredRepository.findAllUserContacts(user.getId()).keySet(),
+                user.getContacts().keySet());
+        Assert.assertTrue(recoveredRepository.findUserContactByContactId(user.getId(), results.get(0).getId()).isPresent());
+    }
+
+    @Test
+    void recoverFromSnapshotAndLog() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = start(repository);
+        User firstUser = repository.save(new User(USER_NAME));
+        repository.addContact(firstUser.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        persistence.snapshot();
+        User secondUser = repository.save(new User(USER_NAME));
+        repository.deleteAllContacts(firstUser.getId());
+        persistence.stop();
+
+        UsersRepository recoveredRepository = new UsersRepository();
+        start(recoveredRepository).stop();
+
+        Assert.assertEquals(2, recoveredRepository.findAll().size());
+        Assert.assertTrue(recoveredRepository.findById(secondUser.getId()).isPresent());
+        Assert.assertTrue(recoveredRepository.findAllUserContacts(firstUser.getId()).isEmpty());
+        Assert.assertEquals(2, recoveredRepository.searchUsers(USER_NAME).size());
+    }
+
+    @Test
+    void truncateTornTailOfLastSegment() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = start(repository);
+        User user = repository.save(new User(USER_NAME));
+        persistence.stop();
+        Path lastSegment = lastSegment();
+        long size = Files.size(lastSegment);
+        Files.write(lastSegment, new byte[]{0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0, 0, 0, 0, 1},
+                StandardOpenOption.APPEND);
+
+        UsersRepository recoveredRepository = new UsersRepository();
+        start(recoveredRepository).stop();
+        Assert.assertTrue(recoveredRepository.findById(user.getId()).isPresent());
+        Assert.assertEquals(size, Files.size(lastSegment));
+
+        UsersRepository restartedRepository = new UsersRepository();
+        start(restartedRepository).stop();
+        Assert.assertTrue(restartedRepository.findById(user.getId()).isPresent());
+    }
+
+    @Test
+    void failOnCorruptedMiddleSegment() throws IOException {
+        UsersRepository repository = new UsersRepository();
+        UsersPersistence persistence = start(repository);
+        repository.save(new User(USER_NAME));
+        persistence.stop();
+        Path corruptedSegment = lastSegment();
+        start(new UsersRepository()).stop();
+        byte[] bytes = Files.readAllBytes(corruptedSegment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(corruptedSegment, bytes);
+
+        IOException exception = assertThrows(IOException.class, () -> start(new UsersRepository()));
+        Assert.assertTrue(exception.getMessage().contains(corruptedSegment.getFileName().toString()));
+        Assert.assertTrue(exception.getMessage().contains("offset 0"));
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Long> segments = WriteAheadLog.segments(directory);
+        return WriteAheadLog.segmentPath(directory, segments.get(segments.size() - 1));
+    }
+}
@@ -0,0 +1,121 @@
+package ru.example.repositories;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.example.models.Contact;
+import ru.example.models.ContactChanges;
+import ru.example.models.ContactFeedEntry;
+import ru.example.models.User;
+import ru.example.models.UserInfoChange;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for ContactChangeFeed
+ *
+ * @since 17.10.2026
+ */
+class ContactChangeFeedTest {
+    private final UsersRepository repository = new UsersRepository();
+    private final ContactChangeFeed feed = new ContactChangeFeed(repository, 3, 5);
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        feed.start();
+        user = repository.save(new User(USER_NAME));
+    }
+
+    @Test
+    void returnChangesAfterSequence() {
+        long since = user.version();
+        Contact contact = repository.addContact(user.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        repository.updateContact(user.getId(), contact.getId(), new Contact("new" + CONTACT_NAME, CONTACT_PHONE));
+        repository.deleteContactByContactId(user.getId(), contact.getId());
+
+        ContactChanges changes = feed.findChanges(user.getId(), since);
+        Assert.assertFalse(changes.isResyncRequired());
+        Assert.assertEquals(3, changes.getChanges().size());
+        Assert.assertEquals(CONTACT_NAME, changes.getChanges().get(0).getContact().getName());
+        Assert.assertEquals("new" + CONTACT_NAME, changes.getChanges().get(1).getContact().getName());
+        Assert.assertNull(changes.getChanges().get(2).getContact());
+        Assert.assertEquals(contact.getId(), changes.getChanges().get(2).getContactId());
+        Assert.assertEquals(changes.getChanges().get(2).getSequence(), changes.getLastSequence());
+
+        ContactChanges noChanges = feed.findChanges(user.getId(), changes.getLastSequence());
+        Assert.assertTrue(noChanges.getChanges().isEmpty());
+        Assert.assertEquals(changes.getLastSequence(), noChanges.getLastSequence());
+    }
+
+    @Test
+    void requireResyncWhenChangesAreNotKept() {
+        long since = user.version();
+        for (int i = 0; i < 4; i++) {
+            repository.addContact(user.getId(), new Contact(CONTACT_NAME + i, CONTACT_PHONE));
+        }
+        Assert.assertTrue(feed.findChanges(user.getId(), since).isResyncRequired());
+        Assert.assertTrue(feed.findChanges(user.getId(), 0).isResyncRequired());
+
+        repository.save(user);
+        Assert.assertTrue(feed.findChanges(user.getId(), since).isResyncRequired());
+        Assert.assertFalse(feed.findChanges(user.getId(), user.version()).isResyncRequired());
+    }
+
+    @Test
+    void dropOldestChangesOfAllBooks() {
+        long since = user.version();
+        User otherUser = repository.save(new User(USER_NAME));
+        long otherSince = otherUser.version();
+        for (int i = 0; i < 3; i++) {
+            repository.addContact(user.getId(), new Contact(CONTACT_NAME + i, CONTACT_PHONE));
+        }
+        long firstSequence = feed.findChanges(user.getId(), since).getChanges().get(0).getSequence();
+        for (int i = 0; i < 3; i++) {
+            repository.addContact(otherUser.getId(), new Contact(CONTACT_NAME + i, CONTACT_PHONE));
+        }
+        Assert.assertTrue(feed.findChanges(user.getId(), since).isResyncRequired());
+        ContactChanges keptChanges = feed.findChanges(user.getId(), firstSequence);
+        Assert.assertFalse(keptChanges.isResyncRequired());
+        Assert.assertEquals(2, keptChanges.getChanges().size());
+        ContactChanges otherChanges = feed.findChanges(otherUser.getId(), otherSince);
+        Assert.assertFalse(otherChanges.isResyncRequired());
+        Assert.assertEquals(3, otherChanges.getChanges().size());
+    }
+
+    @Test
+    void notifySubscriberOfDeletedBook() {
+        repository.deleteById(user.getId());
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        feed.subscribe(user.getId(), null, subscriber);
+        Assert.assertTrue(subscriber.deleted);
+    }
+
+    private static final class RecordingSubscriber implements ContactFeedSubscriber {
+        private boolean deleted;
+
+        @Override
+        public void replay(ContactChanges changes) {
+        }
+
+        @Override
+        public boolean contactChanged(ContactFeedEntry entry) {
+            return true;
+        }
+
+        @Override
+        public boolean userInfoUpdated(UserInfoChange change) {
+            return true;
+        }
+
+        @Override
+        public boolean resyncRequired(long sequence) {
+            return true;
+        }
+
+        @Override
+        public void userDeleted() {
+            deleted = true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.example.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import ru.example.models.Contact;
+import ru.example.models.SearchResult;
+import ru.example.models.User;
+
+import java.util.Collections;
+import java.util.List;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for SearchCache
+ *
+ * @since 17.10.2026
+ */
+class SearchCacheTest {
+
+    @Test
+    void cacheUsersSearchUntilUserChanged() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        UsersRepository repository = new UsersRepository(registry, SlowOperationLog.disabled(),
+                new SearchCache(100, 100, registry));
+        User user = repository.save(new User(USER_NAME));
+        List<User> foundUsers = repository.searchUsers(USER_NAME);
+        Assert.assertSame(foundUsers, repository.searchUsers(USER_NAME.toLowerCase()));
+        Assert.assertEquals(0.5, registry.get("telephonebook.search.cache.hit.ratio").gauge().value(), 0.001);
+
+        User otherUser = repository.save(new User(USER_NAME + " 2"));
+        Assert.assertEquals(2, repository.searchUsers(USER_NAME).size());
+        repository.updateUserInfo(otherUser.getId(), new User(CONTACT_NAME));
+        Assert.assertEquals(1, repository.searchUsers(USER_NAME).size());
+        repository.deleteById(user.getId());
+        Assert.assertTrue(repository.searchUsers(USER_NAME).isEmpty());
+    }
+
+    @Test
+    void cacheContactsSearchUntilContactsChanged() {
+        UsersRepository repository = new UsersRepository(new SimpleMeterRegistry(), SlowOperationLog.disabled(),
+                new SearchCache(100, 100, new SimpleMeterRegistry()));
+        Long userId = repository.save(new User(USER_NAME)).getId();
+        Long otherUserId = repository.save(new User(USER_NAME)).getId();
+        Assert.assertTrue(repository.searchContacts(userId, CONTACT_PHONE).isEmpty());
+
+        Contact contact = repository.addContact(userId, new Contact(CONTACT_NAME, CONTACT_PHONE));
+        List<Contact> foundContacts = repository.searchContacts(userId, CONTACT_PHONE);
+        Assert.assertEquals(1, foundContacts.size());
+        repository.addContact(otherUserId, new Contact(CONTACT_NAME, CONTACT_PHONE));
+        Assert.assertSame(foundContacts, repository.searchContacts(userId, CONTACT_PHONE));
+
+        repository.updateContact(userId, contact.getId(), new Contact(CONTACT_NAME, "123"));
+        Assert.assertTrue(repository.searchContacts(userId, CONTACT_PHONE).isEmpty());
+        repository.deleteContactByContactId(userId, contact.getId());
+        Assert.assertTrue(repository.searchContacts(userId, "123").isEmpty());
+    }
+
+    @Test
+    void skipLargeResults() {
+        SearchCache cache = new SearchCache(100, 1, new SimpleMeterRegistry());
+        UsersRepository repository = new UsersRepository(new SimpleMeterRegistry(), SlowOperationLog.disabled(), cache);
+        repository.save(new User(USER_NAME));
+        repository.save(new User(USER_NAME));
+        repository.searchUsers(USER_NAME);
+        Assert.assertEquals(0, cache.size());
+
+        SearchCache disabledCache = SearchCache.disabled();
+        long generation = disabledCache.usersGeneration();
+        disabledCache.putUsers(generation, USER_NAME, new SearchResult<>(Collections.emptyList(), 0));
+        Assert.assertNull(disabledCache.findUsers(generation, USER_NAME));
+    }
+}
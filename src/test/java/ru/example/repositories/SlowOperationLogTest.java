@@ -0,0 +1,65 @@
+package ru.example.repositories;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import ru.example.models.SlowOperation;
+import ru.example.models.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for SlowOperationLog
+ *
+ * @since 17.10.2026
+ */
+class SlowOperationLogTest {
+
+    @Test
+    void recordOnlySlowOperations() {
+        SlowOperationLog log = new SlowOperationLog(10, 1, 16);
+        log.record("searchUsers", USER_NAME, null, 5, 1, TimeUnit.MILLISECONDS.toNanos(1));
+        log.record("searchUsers", USER_NAME, null, 5, 1, TimeUnit.MILLISECONDS.toNanos(20));
+        List<SlowOperation> slowest = log.findSlowest(10);
+        Assert.assertEquals(1, slowest.size());
+        Assert.assertEquals(20_000, slowest.get(0).getElapsedMicros());
+        Assert.assertEquals(5, slowest.get(0).getCandidates());
+    }
+
+    @Test
+    void keepLatestOperationsOrderedByDuration() {
+        SlowOperationLog log = new SlowOperationLog(0, 1, 4);
+        for (int i = 1; i <= 10; i++) {
+            log.record("searchContacts", CONTACT_PHONE, (long) i, i, i, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        List<SlowOperation> slowest = log.findSlowest(2);
+        Assert.assertEquals(2, slowest.size());
+        Assert.assertEquals(10, slowest.get(0).getElapsedMicros());
+        Assert.assertEquals(9, slowest.get(1).getElapsedMicros());
+        Assert.assertEquals(4, log.findSlowest(100).size());
+    }
+
+    @Test
+    void disabledLogRecordsNothing() {
+        SlowOperationLog log = SlowOperationLog.disabled();
+        log.record("searchUsers", USER_NAME, null, 1, 1, Long.MAX_VALUE - 1);
+        Assert.assertTrue(log.findSlowest(10).isEmpty());
+    }
+
+    @Test
+    void repositoryRecordsSearches() {
+        SlowOperationLog log = new SlowOperationLog(0, 1, 16);
+        UsersRepository repository = new UsersRepository(new SimpleMeterRegistry(), log);
+        User user = repository.save(new User(USER_NAME));
+        repository.searchUsers(USER_NAME.substring(1));
+        repository.searchContacts(user.getId(), CONTACT_PHONE);
+        List<SlowOperation> slowest = log.findSlowest(10);
+        Assert.assertEquals(2, slowest.size());
+        Assert.assertTrue(slowest.stream().anyMatch(it -> user.getId().equals(it.getUserId())
+                && CONTACT_PHONE.equals(it.getQuery())));
+        Assert.assertTrue(slowest.stream().anyMatch(it -> it.getUserId() == null && it.getResults() == 1));
+    }
+}
@@ -1,17 +1,29 @@
 package ru.example.repositories;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.example.exceptions.ContactNotFoundException;
 import ru.example.exceptions.UserNotFoundException;
+import ru.example.models.BatchResult;
 import ru.example.models.Contact;
+import ru.example.models.ContactOperation;
+import ru.example.models.Page;
+import ru.example.models.PhoneOwner;
 import ru.example.models.User;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static ru.example.Constants.*;
@@ -55,6 +67,26 @@ class UsersRepositoryTest {
         Assert.assertFalse(userFromRepository.isPresent());
     }
 
+    @Test
+    void findAllById() {
+        User otherUser = usersRepository.save(new User(USER_NAME));
+        BatchResult<User> result = usersRepository.findAllById(Arrays.asList(otherUser.getId(), USER_NONEXISTENT_ID,
+                sampleUser.getId(), otherUser.getId()));
+        Assert.assertEquals(Arrays.asList(otherUser, sampleUser), result.getFound());
+        Assert.assertEquals(Arrays.asList(USER_NONEXISTENT_ID), result.getMissing());
+    }
+
+    @Test
+    void findUserContactsByIds() {
+        Long contactId = sampleUser.getContacts().keySet().iterator().next();
+        BatchResult<Contact> result = usersRepository.findUserContactsByIds(sampleUser.getId(),
+                Arrays.asList(CONTACT_NONEXISTENT_ID, contactId));
+        Assert.assertEquals(Arrays.asList(sampleUser.getContacts().get(contactId)), result.getFound());
+        Assert.assertEquals(Arrays.asList(CONTACT_NONEXISTENT_ID), result.getMissing());
+        assertThrows(UserNotFoundException.class,
+                () -> usersRepository.findUserContactsByIds(USER_NONEXISTENT_ID, Arrays.asList(contactId)));
+    }
+
     @Test
     void deleteByIdExistingUser() {
         Long userId = sampleUser.getId();
@@ -85,6 +117,22 @@ class UsersRepositoryTest {
         Assert.assertEquals(userCountBefore + 1, userCountAfter);
     }
 
+    @Test
+    void findUsersPage() {
+        User secondUser = usersRepository.save(new User(USER_NAME));
+        User thirdUser = usersRepository.save(new User(USER_NAME));
+
+        Page<User> firstPage = usersRepository.findPage(null, 2);
+        Assert.assertEquals(2, firstPage.getItems().size());
+        Assert.assertEquals(sampleUser, firstPage.getItems().get(0));
+        Assert.assertEquals(secondUser.getId(), firstPage.getNextAfter());
+
+        Page<User> lastPage = usersRepository.findPage(firstPage.getNextAfter(), 2);
+        Assert.assertEquals(1, lastPage.getItems().size());
+        Assert.assertEquals(thirdUser, lastPage.getItems().get(0));
+        Assert.assertNull(lastPage.getNextAfter());
+    }
+
     @Test
     void updateExistingUserInfo() {
         Long currentId = sampleUser.getId();
@@ -121,6 +169,25 @@ class UsersRepositoryTest {
         Assert.assertTrue(result.isEmpty());
     }
 
+    @Test
+    void searchUserAfterUpdate() {
+        Long currentId = sampleUser.getId();
+        User newUser = new User(CONTACT_NAME + USER_NAME);
+        usersRepository.updateUserInfo(currentId, newUser);
+
+        List<User> result = usersRepository.searchUsers(CONTACT_NAME.substring(2));
+        Assert.assertTrue(result.stream().anyMatch(it -> it.getId().equals(currentId)));
+    }
+
+    @Test
+    void searchDeletedUser() {
+        Long currentId = sampleUser.getId();
+        usersRepository.deleteById(currentId);
+
+        List<User> result = usersRepository.searchUsers(USER_NAME.substring(1));
+        Assert.assertTrue(result.isEmpty());
+    }
+
     //Contacts Test
     @Test
     void findUserAllContacts() {
@@ -132,6 +199,21 @@ class UsersRepositoryTest {
         Assert.assertEquals(expectedContactList, actualContactList);
     }
 
+    @Test
+    void findUserContactsPage() {
+        Long currentUserId = sampleUser.getId();
+        Long firstContactId = sampleUser.getContacts().keySet().stream().min(Long::compare).get();
+
+        Page<Contact> firstPage = usersRepository.findUserContactsPage(currentUserId, null, 10);
+        Assert.assertEquals(10, firstPage.getItems().size());
+        Assert.assertEquals(firstContactId, firstPage.getItems().get(0).getId());
+
+        Page<Contact> lastPage = usersRepository.findUserContactsPage(currentUserId, firstPage.getNextAfter(), 10);
+        Assert.assertEquals(NUMBER_OF_CONTACTS - 10, lastPage.getItems().size());
+        Assert.assertTrue(lastPage.getItems().get(0).getId() > firstPage.getNextAfter());
+        Assert.assertNull(lastPage.getNextAfter());
+    }
+
     @Test
     void findUserExistingContactById() {
         Contact anyContact = sampleUser.getContacts().values().stream().findAny().get();
@@ -231,4 +313,202 @@ class UsersRepositoryTest {
         List<Contact> result = usersRepository.searchContacts(userId, bigContactPhone);
         Assert.assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findPhoneOwners() {
+        Long userId = sampleUser.getId();
+        Contact newContact = new Contact(CONTACT_NAME, "+7 (999) 000-00-00");
+        usersRepository.addContact(userId, newContact);
+
+        List<PhoneOwner> result = usersRepository.findPhoneOwners("79990000000");
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(new PhoneOwner(userId, newContact.getId()), result.get(0));
+    }
+
+    @Test
+    void findOwnersOfSharedPhone() {
+        Long userId = sampleUser.getId();
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i <= ReversePhoneIndex.SHARED_NUMBER_THRESHOLD; i++) {
+            contacts.add(usersRepository.addContact(userId, new Contact(CONTACT_NAME + i, "8 (800) 555-35-35")));
+        }
+        Assert.assertEquals(contacts.size(), usersRepository.findPhoneOwners("88005553535").size());
+        Assert.assertTrue(usersRepository.findPhoneOwners("88005553535")
+                .contains(new PhoneOwner(userId, contacts.get(0).getId())));
+
+        usersRepository.deleteContactByContactId(userId, contacts.get(0).getId());
+        Assert.assertFalse(usersRepository.findPhoneOwners("88005553535")
+                .contains(new PhoneOwner(userId, contacts.get(0).getId())));
+        for (Contact contact : contacts.subList(1, contacts.size())) {
+            usersRepository.deleteContactByContactId(userId, contact.getId());
+        }
+        Assert.assertTrue(usersRepository.findPhoneOwners("88005553535").isEmpty());
+    }
+
+    @Test
+    void findPhoneOwnersAfterUpdateAndDelete() {
+        Long userId = sampleUser.getId();
+        Long contactId = sampleUser.getContacts()
+                .keySet()
+                .stream()
+                .findAny()
+                .get();
+        String oldPhone = sampleUser.getContacts().get(contactId).getPhone();
+
+        usersRepository.updateContact(userId, contactId, new Contact(CONTACT_NAME, "79990000001"));
+        Assert.assertTrue(usersRepository.findPhoneOwners(oldPhone).isEmpty());
+        Assert.assertEquals(1, usersRepository.findPhoneOwners("79990000001").size());
+
+        usersRepository.deleteContactByContactId(userId, contactId);
+        Assert.assertTrue(usersRepository.findPhoneOwners("79990000001").isEmpty());
+    }
+
+    @Test
+    void rejectChangeBeforeDataIsChanged() {
+        usersRepository.addListener(new UsersRepositoryListener() {
+            @Override
+            public void beforeChange() {
+                throw new IllegalStateException("Log failed");
+            }
+        });
+        assertThrows(IllegalStateException.class,
+                () -> usersRepository.addContact(sampleUser.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE)));
+        Assert.assertEquals(contactMap.keySet(), usersRepository.findAllUserContacts(sampleUser.getId()).keySet());
+    }
+
+    @Test
+    void callAfterChangeWithoutLocks() {
+        ContactOperation add = new ContactOperation();
+        add.setType(ContactOperation.Type.ADD);
+        add.setName(CONTACT_NAME);
+        Long userId = sampleUser.getId();
+        usersRepository.addListener(new UsersRepositoryListener() {
+            private boolean batchApplied;
+
+            @Override
+            public void afterChange() {
+                if (!batchApplied) {
+                    batchApplied = true;
+                    try {
+                        CompletableFuture.runAsync(() -> usersRepository.applyContactOperations(userId,
+                                Collections.singletonList(add))).get(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Batch is blocked by lock of finished change", e);
+                    }
+                }
+            }
+        });
+        usersRepository.addContact(userId, new Contact(CONTACT_NAME, CONTACT_PHONE));
+        Assert.assertEquals(NUMBER_OF_CONTACTS + 2, usersRepository.findAllUserContacts(userId).size());
+    }
+
+    @Test
+    void metrics() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        UsersRepository repository = new UsersRepository(registry);
+        User user = repository.save(new User(USER_NAME, sampleUser.getContacts()));
+        repository.save(new User(USER_NAME));
+        repository.addContact(user.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        repository.findById(user.getId());
+        repository.findById(USER_NONEXISTENT_ID);
+        assertThrows(UserNotFoundException.class, () -> repository.findAllUserContacts(USER_NONEXISTENT_ID));
+
+        Assert.assertEquals(2, registry.get("telephonebook.users").gauge().value(), 0);
+        Assert.assertEquals(NUMBER_OF_CONTACTS + 1, registry.get("telephonebook.contacts").gauge().value(), 0);
+        Assert.assertEquals(NUMBER_OF_CONTACTS + 1, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+        Assert.assertEquals(1, registry.get("telephonebook.repository.find").tag("result", "hit").counter().count(), 0);
+        Assert.assertEquals(1, registry.get("telephonebook.repository.find").tag("result", "miss").counter().count(), 0);
+        Assert.assertEquals(1, registry.get("telephonebook.repository.user.not.found").counter().count(), 0);
+        Assert.assertEquals(2, registry.get("telephonebook.repository").tag("operation", "save").timer().count());
+
+        repository.deleteById(user.getId());
+        Assert.assertEquals(0, registry.get("telephonebook.contacts").gauge().value(), 0);
+        Assert.assertEquals(0, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+    }
+
+    @Test
+    void maxBookSizeAndDeleteMetrics() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        UsersRepository repository = new UsersRepository(registry);
+        User user = repository.save(new User(USER_NAME, sampleUser.getContacts()));
+        User otherUser = repository.save(new User(USER_NAME));
+        Contact contact = repository.addContact(otherUser.getId(), new Contact(CONTACT_NAME, CONTACT_PHONE));
+        Assert.assertEquals(NUMBER_OF_CONTACTS, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+
+        Long contactId = user.getContacts().keySet().iterator().next();
+        repository.deleteContactByContactId(user.getId(), contactId);
+        Assert.assertEquals(NUMBER_OF_CONTACTS - 1, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+
+        repository.deleteAllContacts(user.getId());
+        Assert.assertEquals(1, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+        ContactOperation delete = new ContactOperation();
+        delete.setType(ContactOperation.Type.DELETE);
+        delete.setContactId(contact.getId());
+        repository.applyContactOperations(otherUser.getId(), Collections.singletonList(delete));
+        Assert.assertEquals(0, registry.get("telephonebook.book.size.max").gauge().value(), 0);
+
+        repository.deleteAll();
+        Assert.assertEquals(1, registry.get("telephonebook.repository")
+                .tag("operation", "deleteAllContacts").timer().count());
+        Assert.assertEquals(1, registry.get("telephonebook.repository").tag("operation", "deleteAll").timer().count());
+    }
+
+    @Test
+    void deleteAllExcludesOtherChanges() throws Exception {
+        User newUser = new User(USER_NAME);
+        CompletableFuture<User> save = new CompletableFuture<>();
+        usersRepository.addListener(new UsersRepositoryListener() {
+            @Override
+            public void allUsersDeleted() {
+                CompletableFuture.runAsync(() -> save.complete(usersRepository.save(newUser)));
+                try {
+                    save.get(200, TimeUnit.MILLISECONDS);
+                    Assert.fail("User is saved while all users are being deleted");
+                } catch (TimeoutException e) {
+                    // save waits for deletion of all users
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        usersRepository.deleteAll();
+        save.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(Collections.singleton(newUser.getId()), usersRepository.findAll().keySet());
+    }
+
+    @Test
+    void keepUsersOrderedWhenSameUserIsSavedAndDeleted() throws Exception {
+        User user = new User(USER_NAME);
+        CompletableFuture<Void> saves = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                usersRepository.save(user);
+            }
+        });
+        CompletableFuture<Void> deletes = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                try {
+                    usersRepository.deleteById(user.getId());
+                } catch (UserNotFoundException e) {
+                    // user is not saved yet
+                }
+            }
+        });
+        saves.get(30, TimeUnit.SECONDS);
+        deletes.get(30, TimeUnit.SECONDS);
+        Assert.assertEquals(usersRepository.findAll().size(), usersRepository.findPage(null, 1000).getItems().size());
+    }
+
+    @Test
+    void saveAllAsOneChange() {
+        int[] changes = {0};
+        usersRepository.addListener(new UsersRepositoryListener() {
+            @Override
+            public void afterChange() {
+                changes[0]++;
+            }
+        });
+        List<User> savedUsers = usersRepository.saveAll(Arrays.asList(new User(USER_NAME), new User(USER_NAME)));
+        Assert.assertEquals(2, savedUsers.size());
+        Assert.assertEquals(1, changes[0]);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.example.search;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+/**
+ * Tests for NGramIndex class
+ *
+ * @since 17.10.2026
+ */
+class NGramIndexTest {
+    private final NGramIndex index = new NGramIndex(String::toUpperCase);
+
+    @Test
+    void findCandidatesBySubstring() {
+        index.add(1L, "Username");
+        index.add(2L, "Contact");
+
+        long[] candidates = index.candidates("erna");
+        Assert.assertTrue(contains(candidates, 1));
+        Assert.assertFalse(contains(candidates, 2));
+    }
+
+    @Test
+    void findCandidatesByShortQuery() {
+        index.add(1L, "Username");
+        index.add(2L, "Contact");
+
+        Assert.assertTrue(contains(index.candidates("e"), 1));
+        Assert.assertTrue(contains(index.candidates("ct"), 2));
+        Assert.assertFalse(contains(index.candidates("ct"), 1));
+    }
+
+    @Test
+    void removeFromIndex() {
+        index.add(1L, "Username");
+        index.remove(1L, "Username");
+        Assert.assertEquals(0, index.candidates("name").length);
+        Assert.assertEquals(0, index.candidates("e").length);
+        Assert.assertEquals(0, index.candidates("me").length);
+    }
+
+    @Test
+    void updateIndex() {
+        index.add(1L, "Username");
+        index.update(1L, "Username", "Nickname");
+
+        Assert.assertTrue(contains(index.candidates("nick"), 1));
+        Assert.assertTrue(contains(index.candidates("name"), 1));
+        Assert.assertEquals(0, index.candidates("user").length);
+        Assert.assertTrue(contains(index.candidates("ck"), 1));
+        Assert.assertEquals(0, index.candidates("us").length);
+    }
+
+    private static boolean contains(long[] candidates, long id) {
+        return LongStream.of(candidates).anyMatch(it -> it == id);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.example.search;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for PackedDigits
+ *
+ * @since 17.10.2026
+ */
+class PackedDigitsTest {
+
+    @Test
+    void packAndUnpack() {
+        Assert.assertEquals("79990000012", PackedDigits.unpack(PackedDigits.pack("+7 (999) 000-00-12")));
+        Assert.assertEquals("", PackedDigits.unpack(PackedDigits.pack("")));
+        Assert.assertEquals("123456789012345", PackedDigits.unpack(PackedDigits.pack("123456789012345")));
+        Assert.assertEquals(PackedDigits.NOT_PACKED, PackedDigits.pack("1234567890123456"));
+        Assert.assertEquals(PackedDigits.NOT_PACKED, PackedDigits.pack(null));
+    }
+
+    @Test
+    void containsDigits() {
+        long phone = PackedDigits.pack("88005553535");
+        Assert.assertTrue(PackedDigits.contains(phone, PackedDigits.pack("555")));
+        Assert.assertTrue(PackedDigits.contains(phone, PackedDigits.pack("3535")));
+        Assert.assertTrue(PackedDigits.contains(phone, PackedDigits.pack("88005553535")));
+        Assert.assertFalse(PackedDigits.contains(phone, PackedDigits.pack("5554")));
+        Assert.assertFalse(PackedDigits.contains(phone, PackedDigits.pack("880055535351")));
+        Assert.assertTrue(PackedDigits.contains(PackedDigits.pack("000"), PackedDigits.pack("00")));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.example.search;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for PhoneTrigramIndex class
+ *
+ * @since 17.10.2026
+ */
+class PhoneTrigramIndexTest {
+    private final PhoneTrigramIndex index = new PhoneTrigramIndex();
+
+    @Test
+    void findCandidatesByDigits() {
+        index.add(1, "+7 (800) 555-35-35");
+        index.add(2, "8-912-000-11-22");
+        index.add(3, "12");
+        Assert.assertArrayEquals(new long[]{1}, index.candidates("5553535"));
+        Assert.assertArrayEquals(new long[]{2}, index.candidates("000"));
+        index.add(4, "8005553535");
+        long[] candidates = index.candidates("800555");
+        Arrays.sort(candidates);
+        Assert.assertArrayEquals(new long[]{1, 4}, candidates);
+        Assert.assertEquals(0, index.candidates("999").length);
+    }
+
+    @Test
+    void updateAndRemove() {
+        index.add(1, "1234567");
+        index.update(1, "1234567", "7654321");
+        Assert.assertEquals(0, index.candidates("345").length);
+        Assert.assertArrayEquals(new long[]{1}, index.candidates("543"));
+        index.remove(1, "7654321");
+        Assert.assertEquals(0, index.candidates("543").length);
+    }
+
+    @Test
+    void rejectShortQuery() {
+        assertThrows(IllegalArgumentException.class, () -> index.candidates("12"));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.example.storage;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.example.exceptions.InvalidContactOperationException;
+import ru.example.models.Contact;
+import ru.example.models.ContactOperation;
+import ru.example.models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.example.Constants.*;
+
+/**
+ * Unit test for OffHeapContactStorage
+ *
+ * @since 17.10.2026
+ */
+class OffHeapContactStorageTest {
+    private final OffHeapContactArena arena = new OffHeapContactArena();
+
+    @AfterEach
+    public void useHeapStorage() {
+        User.useContactStorage(HeapContactStorage::new);
+    }
+
+    @Test
+    void putGetRemove() {
+        OffHeapContactStorage storage = new OffHeapContactStorage(arena);
+        Contact contact = new Contact(CONTACT_NAME, CONTACT_PHONE);
+        Assert.assertNull(storage.put(contact));
+        Assert.assertEquals(contact, storage.get(contact.getId()));
+        Assert.assertNotSame(contact, storage.get(contact.getId()));
+
+        Contact updatedContact = contact.withInfo(new Contact(USER_NAME, null));
+        Assert.assertEquals(contact, storage.put(updatedContact));
+        Assert.assertEquals(updatedContact, storage.get(contact.getId()));
+        Assert.assertTrue(arena.garbageBytes() > 0);
+
+        Assert.assertEquals(updatedContact, storage.remove(contact.getId()));
+        Assert.assertNull(storage.get(contact.getId()));
+        Assert.assertNull(storage.remove(contact.getId()));
+        Assert.assertEquals(0, storage.size());
+        Assert.assertEquals(0, arena.liveRows());
+    }
+
+    @Test
+    void readsDoNotUseNamePool() {
+        OffHeapContactStorage storage = new OffHeapContactStorage(arena);
+        Contact contact = new Contact(CONTACT_NAME, CONTACT_PHONE);
+        storage.put(contact);
+        long lookups = Contact.namePool().lookups();
+        long savedBytes = Contact.namePool().savedBytes();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(CONTACT_NAME, storage.get(contact.getId()).getName());
+        }
+        Assert.assertEquals(lookups, Contact.namePool().lookups());
+        Assert.assertEquals(savedBytes, Contact.namePool().savedBytes());
+    }
+
+    @Test
+    void reuseBytesOfReplacedStrings() {
+        OffHeapContactStorage storage = new OffHeapContactStorage(arena);
+        Contact contact = new Contact(CONTACT_NAME, CONTACT_PHONE);
+        storage.put(contact);
+        long allocatedBytes = arena.allocatedBytes();
+        String longName = String.format("%040d", 0);
+        for (int i = 0; i < 300_000; i++) {
+            storage.put(contact.withInfo(new Contact(longName.substring(i % 10) + i % 10, CONTACT_PHONE)));
+        }
+        Assert.assertEquals(allocatedBytes, arena.allocatedBytes());
+
+        storage.remove(contact.getId());
+        long garbageBytes = arena.garbageBytes();
+        Assert.assertTrue(garbageBytes > 0);
+        storage.put(contact.withInfo(new Contact(longName, CONTACT_PHONE)));
+        Assert.assertTrue(arena.garbageBytes() < garbageBytes);
+    }
+
+    @Test
+    void startNewChunkAfterExactlyFilledOne() {
+        OffHeapContactStorage storage = new OffHeapContactStorage(arena);
+        char[] name = new char[(1 << 24) - Integer.BYTES];
+        Arrays.fill(name, 'a');
+        Contact first = new Contact(new String(name), null);
+        Contact second = new Contact(new String(name), null);
+        storage.put(first);
+        storage.put(second);
+        Assert.assertEquals(first.getName(), storage.get(first.getId()).getName());
+        Assert.assertEquals(second.getName(), storage.get(second.getId()).getName());
+    }
+
+    @Test
+    void iterateInIdOrderLikeHeapStorage() {
+        OffHeapContactStorage offHeapStorage = new OffHeapContactStorage(arena);
+        HeapContactStorage heapStorage = new HeapContactStorage();
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_CONTACTS; i++) {
+            contacts.add(new Contact(CONTACT_NAME + i, CONTACT_PHONE + i));
+        }
+        for (int i = contacts.size() - 1; i >= 0; i--) {
+            offHeapStorage.put(contacts.get(i));
+            heapStorage.put(contacts.get(i));
+        }
+        Assert.assertEquals(heapStorage, offHeapStorage);
+        Assert.assertEquals(heapStorage.asMap(), offHeapStorage.asMap());
+
+        Iterator<Contact> iterator = offHeapStorage.iterator(contacts.get(4).getId());
+        for (int i = 5; i < contacts.size(); i++) {
+            Assert.assertEquals(contacts.get(i), iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void userWithOffHeapContacts() {
+        User.useContactStorage(() -> new OffHeapContactStorage(arena));
+        User user = new User(USER_NAME);
+        Contact contact = user.addContact(new Contact(CONTACT_NAME, CONTACT_PHONE));
+        user.addContact(new Contact(CONTACT_NAME, "+7 999 000-00-00"));
+        Assert.assertEquals(1, user.searchContactsByPhone(CONTACT_PHONE.substring(2)).size());
+        Assert.assertEquals(CONTACT_NAME, user.getContactById(contact.getId()).get().getName());
+        user.updateContact(contact.getId(), new Contact(USER_NAME, CONTACT_PHONE));
+        Assert.assertEquals(USER_NAME, user.getContacts().get(contact.getId()).getName());
+        user.deleteAllContacts();
+        Assert.assertTrue(user.getContacts().isEmpty());
+    }
+
+    @Test
+    void rejectBatchWithTooLongString() {
+        User.useContactStorage(() -> new OffHeapContactStorage(arena));
+        User user = new User(USER_NAME);
+        Contact contact = user.addContact(new Contact(CONTACT_NAME, CONTACT_PHONE));
+        ContactOperation add = new ContactOperation();
+        add.setType(ContactOperation.Type.ADD);
+        add.setName(CONTACT_NAME);
+        ContactOperation update = new ContactOperation();
+        update.setType(ContactOperation.Type.UPDATE);
+        update.setContactId(contact.getId());
+        update.setName(String.join("", Collections.nCopies(1 << 24, "x")));
+        long version = user.version();
+
+        assertThrows(InvalidContactOperationException.class,
+                () -> user.applyContactOperations(Arrays.asList(add, update), changes -> Assert.fail()));
+        Assert.assertEquals(Collections.singletonList(contact), new ArrayList<>(user.getContacts().values()));
+        Assert.assertEquals(1, arena.liveRows());
+        Assert.assertEquals(version, user.version());
+    }
+}